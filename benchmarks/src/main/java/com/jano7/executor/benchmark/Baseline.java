@@ -0,0 +1,117 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.benchmark;
+
+import com.jano7.executor.KeySequentialRunner;
+import com.jano7.executor.TaskExceptionHandler;
+import com.jano7.executor.VirtualThreads;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.jano7.executor.benchmark.Submitter.shutdownAndAwait;
+
+/**
+ * The implementations which bring their own threads, i.e. don't take an underlying executor.
+ */
+public enum Baseline {
+
+    /**
+     * A dedicated single thread executor per key. Creates a thread per key, hence limited to
+     * {@value #MAX_SINGLE_THREAD_PER_KEY} keys.
+     */
+    SINGLE_THREAD_PER_KEY {
+        @Override
+        Submitter.Instance create(int keys) {
+            if (keys > MAX_SINGLE_THREAD_PER_KEY) {
+                throw new IllegalArgumentException("too many keys for a thread per key: " + keys);
+            }
+            ConcurrentHashMap<Object, ExecutorService> executors = new ConcurrentHashMap<>();
+            return new Submitter.Instance(null) {
+                @Override
+                void submit(Object key, Runnable task) {
+                    executors.computeIfAbsent(key, k -> Executors.newSingleThreadExecutor()).execute(task);
+                }
+
+                @Override
+                void shutdown() throws InterruptedException {
+                    for (ExecutorService executor : executors.values()) {
+                        shutdownAndAwait(executor);
+                    }
+                }
+            };
+        }
+    },
+    /**
+     * Keys hashed onto an array of single thread executors, one per available processor.
+     */
+    STRIPED {
+        @Override
+        Submitter.Instance create(int keys) {
+            ExecutorService[] stripes = new ExecutorService[Runtime.getRuntime().availableProcessors()];
+            for (int i = 0; i < stripes.length; ++i) {
+                stripes[i] = Executors.newSingleThreadExecutor();
+            }
+            return new Submitter.Instance(null) {
+                @Override
+                void submit(Object key, Runnable task) {
+                    stripes[(key.hashCode() & Integer.MAX_VALUE) % stripes.length].execute(task);
+                }
+
+                @Override
+                void shutdown() throws InterruptedException {
+                    for (ExecutorService stripe : stripes) {
+                        shutdownAndAwait(stripe);
+                    }
+                }
+            };
+        }
+    },
+    /**
+     * A virtual thread per active key draining its tasks. Requires JDK 21 or later.
+     */
+    VIRTUAL_THREAD_PER_KEY {
+        @Override
+        Submitter.Instance create(int keys) {
+            ExecutorService virtualThreads = VirtualThreads.newVirtualThreadPerTaskExecutor();
+            KeySequentialRunner<Object> runner = new KeySequentialRunner<>(
+                    virtualThreads,
+                    new TaskExceptionHandler<Object>() {
+                    },
+                    Integer.MAX_VALUE
+            );
+            return new Submitter.Instance(virtualThreads) {
+                @Override
+                void submit(Object key, Runnable task) {
+                    runner.run(key, task);
+                }
+            };
+        }
+    };
+
+    static final int MAX_SINGLE_THREAD_PER_KEY = 10000;
+
+    abstract Submitter.Instance create(int keys);
+}
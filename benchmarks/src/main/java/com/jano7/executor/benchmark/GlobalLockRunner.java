@@ -0,0 +1,87 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.benchmark;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * The key registry of the runner before it moved to a ConcurrentHashMap: every submission and every retirement of a
+ * key hold one global monitor around a HashMap. The baseline of {@link KeyRegistryBenchmark}.
+ */
+final class GlobalLockRunner {
+
+    private final class KeyRunner implements Runnable {
+
+        private final Object key;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private Runnable next;
+
+        KeyRunner(Object key, Runnable first) {
+            this.key = key;
+            this.next = first;
+        }
+
+        @Override
+        public void run() {
+            next.run();
+            Runnable following = tasks.poll();
+            if (following == null) {
+                synchronized (keyRunners) {
+                    following = tasks.poll();
+                    if (following == null) {
+                        keyRunners.remove(key);
+                        return;
+                    }
+                }
+            }
+            next = following;
+            underlyingExecutor.execute(this);
+        }
+    }
+
+    private final Executor underlyingExecutor;
+    private final HashMap<Object, KeyRunner> keyRunners = new HashMap<>();
+
+    GlobalLockRunner(Executor underlyingExecutor) {
+        this.underlyingExecutor = underlyingExecutor;
+    }
+
+    void run(Object key, Runnable task) {
+        KeyRunner created = null;
+        synchronized (keyRunners) {
+            KeyRunner runner = keyRunners.get(key);
+            if (runner == null) {
+                created = new KeyRunner(key, task);
+                keyRunners.put(key, created);
+            } else {
+                runner.tasks.add(task);
+            }
+        }
+        if (created != null) {
+            underlyingExecutor.execute(created);
+        }
+    }
+}
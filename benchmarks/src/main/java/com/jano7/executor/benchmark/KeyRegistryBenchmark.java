@@ -0,0 +1,79 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.benchmark;
+
+import com.jano7.executor.KeySequentialRunner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Measures the contention on the key registry of the runner against the former global lock. The tasks run on the
+ * producer threads, so every submission of a key which isn't active creates, runs and retires its runner, and nothing
+ * but the registry is shared. Compare the scores across the number of producer threads, e.g. {@code -t 1} and
+ * {@code -t 16}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class KeyRegistryBenchmark {
+
+    public enum Registry {
+        CONCURRENT,
+        GLOBAL_LOCK
+    }
+
+    private static final Runnable TASK = () -> {
+    };
+
+    @Param({"1000", "1000000"})
+    public int keys;
+
+    @Param({"CONCURRENT", "GLOBAL_LOCK"})
+    public Registry registry;
+
+    private Object[] keyPool;
+    private BiConsumer<Object, Runnable> runner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keyPool = Producer.keyPool(keys);
+        if (registry == Registry.CONCURRENT) {
+            runner = new KeySequentialRunner<>(Runnable::run)::run;
+        } else {
+            runner = new GlobalLockRunner(Runnable::run)::run;
+        }
+    }
+
+    @Benchmark
+    public void submit() {
+        runner.accept(keyPool[ThreadLocalRandom.current().nextInt(keys)], TASK);
+    }
+}
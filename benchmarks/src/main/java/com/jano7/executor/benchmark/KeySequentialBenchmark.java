@@ -0,0 +1,92 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end throughput (a batch of tasks submitted and awaited by every producer thread) and the
+ * latency percentiles of a single task round trip of the runner and the executors. The number of producer threads is
+ * set by the JMH {@code -t} option. The default parameters are valid on JDK 8; {@code -p underlyingExecutor=VIRTUAL}
+ * requires JDK 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class KeySequentialBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    @Param({"1", "16", "10000", "1000000"})
+    public int keys;
+
+    @Param({"0", "1000"})
+    public long taskCost;
+
+    @Param({"1"})
+    public int maxTasksPerTurn;
+
+    @Param({"FIXED", "FORK_JOIN"})
+    public UnderlyingExecutor underlyingExecutor;
+
+    @Param({"RUNNER", "EXECUTOR", "BOUNDED"})
+    public Submitter submitter;
+
+    private Object[] keyPool;
+    private Submitter.Instance instance;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keyPool = Producer.keyPool(keys);
+        instance = submitter.create(
+                underlyingExecutor.create(Runtime.getRuntime().availableProcessors()),
+                keys,
+                maxTasksPerTurn
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        instance.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void throughput(Producer producer) {
+        producer.submitAndAwait(instance, keyPool, taskCost, BATCH_SIZE);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency(Producer producer) {
+        producer.submitAndAwait(instance, keyPool, taskCost, 1);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A producer thread submitting the tasks for random keys and awaiting their completion; shared by the benchmarks.
+ */
+@State(Scope.Thread)
+public class Producer implements Runnable {
+
+    private final AtomicInteger remaining = new AtomicInteger();
+    private long taskCost;
+    private Thread thread;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        thread = Thread.currentThread();
+    }
+
+    @Override
+    public void run() {
+        Blackhole.consumeCPU(taskCost);
+        if (remaining.decrementAndGet() == 0) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    void submitAndAwait(Submitter.Instance instance, Object[] keyPool, long taskCost, int tasks) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        this.taskCost = taskCost;
+        remaining.set(tasks);
+        for (int i = 0; i < tasks; ++i) {
+            instance.submit(keyPool[random.nextInt(keyPool.length)], this);
+        }
+        while (remaining.get() != 0) {
+            LockSupport.park(this);
+        }
+    }
+
+    static Object[] keyPool(int keys) {
+        Object[] keyPool = new Object[keys];
+        for (int i = 0; i < keys; ++i) {
+            keyPool[i] = i;
+        }
+        return keyPool;
+    }
+}
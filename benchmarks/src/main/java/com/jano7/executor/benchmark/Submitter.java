@@ -0,0 +1,114 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.benchmark;
+
+import com.jano7.executor.BoundedStrategy;
+import com.jano7.executor.KeyRunnable;
+import com.jano7.executor.KeySequentialBoundedExecutor;
+import com.jano7.executor.KeySequentialExecutor;
+import com.jano7.executor.KeySequentialRunner;
+import com.jano7.executor.TaskExceptionHandler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The implementations under test running on an underlying executor, behind a common keyed submission interface.
+ */
+public enum Submitter {
+
+    RUNNER {
+        @Override
+        Instance create(ExecutorService underlyingExecutor, int keys, int maxTasksPerTurn) {
+            KeySequentialRunner<Object> runner = new KeySequentialRunner<>(
+                    underlyingExecutor,
+                    new TaskExceptionHandler<Object>() {
+                    },
+                    maxTasksPerTurn
+            );
+            return new Instance(underlyingExecutor) {
+                @Override
+                void submit(Object key, Runnable task) {
+                    runner.run(key, task);
+                }
+            };
+        }
+    },
+    EXECUTOR {
+        @Override
+        Instance create(ExecutorService underlyingExecutor, int keys, int maxTasksPerTurn) {
+            KeySequentialExecutor executor = new KeySequentialExecutor(
+                    underlyingExecutor,
+                    new TaskExceptionHandler<Runnable>() {
+                    },
+                    maxTasksPerTurn
+            );
+            return new Instance(underlyingExecutor) {
+                @Override
+                void submit(Object key, Runnable task) {
+                    executor.execute(new KeyRunnable<>(key, task));
+                }
+            };
+        }
+    },
+    BOUNDED {
+        @Override
+        Instance create(ExecutorService underlyingExecutor, int keys, int maxTasksPerTurn) {
+            KeySequentialBoundedExecutor executor =
+                    new KeySequentialBoundedExecutor(BOUNDED_MAX_TASKS, BoundedStrategy.BLOCK, underlyingExecutor);
+            return new Instance(underlyingExecutor) {
+                @Override
+                void submit(Object key, Runnable task) {
+                    executor.execute(new KeyRunnable<>(key, task));
+                }
+            };
+        }
+    };
+
+    static final int BOUNDED_MAX_TASKS = 1 << 16;
+
+    abstract Instance create(ExecutorService underlyingExecutor, int keys, int maxTasksPerTurn);
+
+    abstract static class Instance {
+
+        private final ExecutorService underlyingExecutor;
+
+        Instance(ExecutorService underlyingExecutor) {
+            this.underlyingExecutor = underlyingExecutor;
+        }
+
+        abstract void submit(Object key, Runnable task);
+
+        void shutdown() throws InterruptedException {
+            shutdownAndAwait(underlyingExecutor);
+        }
+    }
+
+    static void shutdownAndAwait(ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("executor did not terminate");
+        }
+    }
+}
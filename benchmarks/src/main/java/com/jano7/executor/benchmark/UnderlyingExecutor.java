@@ -0,0 +1,57 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.benchmark;
+
+import com.jano7.executor.VirtualThreads;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+public enum UnderlyingExecutor {
+
+    FIXED {
+        @Override
+        ExecutorService create(int threads) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    },
+    FORK_JOIN {
+        @Override
+        ExecutorService create(int threads) {
+            return new ForkJoinPool(threads);
+        }
+    },
+    /**
+     * Requires JDK 21 or later.
+     */
+    VIRTUAL {
+        @Override
+        ExecutorService create(int threads) {
+            return VirtualThreads.newVirtualThreadPerTaskExecutor();
+        }
+    };
+
+    abstract ExecutorService create(int threads);
+}
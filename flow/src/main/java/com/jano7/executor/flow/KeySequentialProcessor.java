@@ -0,0 +1,234 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.flow;
+
+import com.jano7.executor.KeySequentialRunner;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * {@link Flow.Processor} applying a function to the items of the upstream publisher by a {@link KeySequentialRunner}:
+ * the items with the same key are processed sequentially and their results are published in order, the items with
+ * different keys in parallel. At most maxInFlight items are requested from the upstream and not yet delivered to the
+ * subscriber, so the results wait for the demand of the subscriber in a bounded buffer.
+ * <p>
+ * An exception thrown by the key extractor or the function cancels the upstream and fails the subscriber.
+ * The processor supports a single subscriber.
+ */
+public final class KeySequentialProcessor<T, R> implements Flow.Processor<T, R> {
+
+    private final class Downstream implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("non-positive request " + n));
+            } else {
+                requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream.get();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            drain();
+        }
+    }
+
+    private static final Flow.Subscription CANCELLED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final KeySequentialRunner<Object> runner;
+    private final Function<? super T, ?> keyExtractor;
+    private final Function<? super T, ? extends R> function;
+    private final int maxInFlight;
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Flow.Subscriber<? super R>> downstream = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<R> results = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger processing = new AtomicInteger(0);
+    private final AtomicLong requested = new AtomicLong(0);
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private final AtomicInteger drains = new AtomicInteger(0);
+    private volatile boolean upstreamCompleted = false;
+    private volatile boolean cancelled = false;
+    private boolean terminated = false; // accessed by the draining thread only
+
+    /**
+     * @param keyExtractor the key of an item
+     * @param maxInFlight  the maximum number of the items requested from the upstream and not yet delivered
+     */
+    public KeySequentialProcessor(
+            Executor underlyingExecutor,
+            Function<? super T, ?> keyExtractor,
+            Function<? super T, ? extends R> function,
+            int maxInFlight
+    ) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.runner = new KeySequentialRunner<>(underlyingExecutor);
+        this.keyExtractor = keyExtractor;
+        this.function = function;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber is null");
+        }
+        if (downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Downstream());
+            drain();
+        } else {
+            subscriber.onSubscribe(CANCELLED);
+            subscriber.onError(new IllegalStateException("the processor supports a single subscriber"));
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        if (cancelled) {
+            subscription.cancel();
+        } else {
+            subscription.request(maxInFlight);
+        }
+    }
+
+    @Override
+    public void onNext(T item) {
+        if (cancelled || error.get() != null) {
+            return;
+        }
+        processing.incrementAndGet();
+        try {
+            runner.run(keyExtractor.apply(item), () -> process(item));
+        } catch (Throwable t) {
+            processing.decrementAndGet();
+            fail(t);
+        }
+    }
+
+    private void process(T item) {
+        try {
+            if (!cancelled && error.get() == null) {
+                R result = function.apply(item);
+                if (result == null) {
+                    throw new NullPointerException("the function returned null");
+                }
+                results.offer(result);
+            }
+        } catch (Throwable t) {
+            fail(t);
+        } finally {
+            processing.decrementAndGet();
+        }
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error.compareAndSet(null, throwable);
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamCompleted = true;
+        drain();
+    }
+
+    private void fail(Throwable t) {
+        if (error.compareAndSet(null, t)) {
+            Flow.Subscription subscription = upstream.get();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+        drain();
+    }
+
+    // serializes the signals to the subscriber, the thread which finds other drains in progress leaves the work to it
+    private void drain() {
+        if (drains.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super R> subscriber = downstream.get();
+            if (subscriber != null && !terminated) {
+                long demand = requested.get();
+                long delivered = 0;
+                while (delivered != demand && !cancelled && error.get() == null) {
+                    R result = results.poll();
+                    if (result == null) {
+                        break;
+                    }
+                    subscriber.onNext(result);
+                    ++delivered;
+                }
+                Throwable failure = error.get();
+                if (cancelled) {
+                    terminated = true;
+                    results.clear();
+                } else if (failure != null) {
+                    terminated = true;
+                    results.clear();
+                    subscriber.onError(failure);
+                } else if (upstreamCompleted && processing.get() == 0 && results.isEmpty()) {
+                    terminated = true;
+                    subscriber.onComplete();
+                } else if (delivered != 0) {
+                    if (demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-delivered);
+                    }
+                    upstream.get().request(delivered);
+                }
+            }
+            missed = drains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor.flow;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeySequentialProcessorTest {
+
+    private static final class CollectingSubscriber<R> implements Flow.Subscriber<R> {
+
+        final List<R> received = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<List<R>> completed = new CompletableFuture<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(R item) {
+            received.add(item);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.complete(received);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void processInOrderPerKey() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(8);
+        KeySequentialProcessor<Integer, String> processor =
+                new KeySequentialProcessor<>(underlyingExecutor, i -> i % 10, i -> i % 10 + ":" + i, 16);
+        CollectingSubscriber<String> subscriber = new CollectingSubscriber<>();
+        processor.subscribe(subscriber);
+
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 1000; ++i) {
+                publisher.submit(i);
+            }
+        }
+
+        List<String> received = subscriber.completed.get(5, TimeUnit.SECONDS);
+        assertEquals(1000, received.size());
+        Map<String, Integer> last = new HashMap<>();
+        for (String result : received) {
+            String[] keyAndValue = result.split(":");
+            int value = Integer.parseInt(keyAndValue[1]);
+            assertTrue(last.getOrDefault(keyAndValue[0], -1) < value);
+            last.put(keyAndValue[0], value);
+        }
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void demandBoundedByInFlight() throws Exception {
+        AtomicLong upstreamDemand = new AtomicLong(0);
+        List<Flow.Subscriber<? super Integer>> upstreamSubscriber = new ArrayList<>();
+        Flow.Publisher<Integer> publisher = subscriber -> {
+            upstreamSubscriber.add(subscriber);
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    upstreamDemand.addAndGet(n);
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+        KeySequentialProcessor<Integer, Integer> processor =
+                new KeySequentialProcessor<>(Runnable::run, i -> i, i -> i, 4);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        Flow.Subscription[] downstream = new Flow.Subscription[1];
+        processor.subscribe(new Flow.Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                downstream[0] = subscription;
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        publisher.subscribe(processor);
+
+        assertEquals(4, upstreamDemand.get());
+        for (int i = 0; i < 4; ++i) {
+            upstreamSubscriber.get(0).onNext(i);
+        }
+        assertEquals(4, upstreamDemand.get());
+        assertTrue(received.isEmpty());
+
+        downstream[0].request(3);
+        assertEquals(3, received.size());
+        assertEquals(7, upstreamDemand.get());
+    }
+
+    @Test(timeout = 5000)
+    public void functionFailureFailsSubscriber() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        KeySequentialProcessor<Integer, Integer> processor = new KeySequentialProcessor<>(
+                underlyingExecutor,
+                i -> i,
+                i -> {
+                    throw new IllegalStateException("failed " + i);
+                },
+                4
+        );
+        CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+        processor.subscribe(subscriber);
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            publisher.submit(1);
+        }
+
+        try {
+            subscriber.completed.get(5, TimeUnit.SECONDS);
+        } catch (java.util.concurrent.ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(subscriber.completed.isCompletedExceptionally());
+
+        underlyingExecutor.shutdownNow();
+    }
+}
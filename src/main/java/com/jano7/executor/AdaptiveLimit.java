@@ -0,0 +1,121 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD limit of the tasks accepted by a {@link KeySequentialBoundedExecutor}. The latency of the tasks, from the
+ * acceptance to the completion, is collected in windows of about limit samples. After each window the limit is cut
+ * by 10% if the latency percentile of the window exceeds the target, or raised by one if the tasks in flight use at
+ * least a half of it. An instance is meant for a single executor.
+ */
+public final class AdaptiveLimit {
+
+    private static final double BACKOFF = 0.9;
+    private static final int MIN_WINDOW = 10;
+
+    private static final class Window {
+
+        final AtomicInteger samples = new AtomicInteger(0);
+        final int size;
+
+        Window(int limit) {
+            this.size = Math.max(MIN_WINDOW, limit);
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double percentile;
+    private final long targetNanos;
+    private volatile int limit;
+    // reset for each window; a sample of the previous window may land in the next one
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private volatile Window window;
+
+    /**
+     * @param percentile    the latency percentile kept under the target, e.g. 99
+     * @param targetLatency the target of the time from the acceptance of a task to its completion
+     */
+    public AdaptiveLimit(
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            double percentile,
+            long targetLatency,
+            TimeUnit unit
+    ) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("0 < minLimit <= initialLimit <= maxLimit required");
+        }
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in the range (0, 100]");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.percentile = percentile;
+        this.targetNanos = unit.toNanos(targetLatency);
+        this.limit = initialLimit;
+        this.window = new Window(initialLimit);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return true if the sample completes a window; the caller adjusts the limit then
+     */
+    boolean record(long latencyNanos) {
+        Window current = window;
+        latencies.record(latencyNanos);
+        return current.samples.incrementAndGet() == current.size;
+    }
+
+    // invoked holding the monitor of this limit by the thread which has completed the window
+    int adjust(int inFlight) {
+        long latency = latencies.valueAtPercentile(percentile);
+        int current = limit;
+        if (latency > targetNanos) {
+            current = Math.max(minLimit, Math.min(current - 1, (int) (current * BACKOFF)));
+        } else if (inFlight * 2 >= current) {
+            current = Math.min(maxLimit, current + 1);
+        }
+        limit = current;
+        nextWindow(current);
+        return current;
+    }
+
+    // invoked holding the monitor of this limit when the limit must not change
+    void skipWindow() {
+        nextWindow(limit);
+    }
+
+    private void nextWindow(int limit) {
+        latencies.reset();
+        window = new Window(limit);
+    }
+}
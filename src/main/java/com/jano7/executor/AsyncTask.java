@@ -0,0 +1,83 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Supplier;
+
+class AsyncTask<T> extends CompletableFuture<T> implements Runnable {
+
+    @SuppressWarnings("unchecked")
+    private static final AtomicIntegerFieldUpdater<AsyncTask<?>> STARTED = (AtomicIntegerFieldUpdater<AsyncTask<?>>)
+            (AtomicIntegerFieldUpdater<?>) AtomicIntegerFieldUpdater.newUpdater(AsyncTask.class, "started");
+
+    private final Supplier<? extends CompletionStage<T>> supplier;
+    private volatile int started = 0;
+
+    AsyncTask(Supplier<? extends CompletionStage<T>> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Starts the task and invokes the continuation when the stage returned by the task completes, unless it completes
+     * before this method returns.
+     *
+     * @return true if the continuation is going to be invoked; false if the task has already completed
+     */
+    boolean start(Runnable continuation) {
+        if (isDone()) {
+            return false;
+        }
+        CompletionStage<T> stage;
+        try {
+            stage = supplier.get();
+            if (stage == null) {
+                throw new NullPointerException("stage is null");
+            }
+        } catch (Throwable t) {
+            completeExceptionally(t);
+            return false;
+        }
+        stage.whenComplete((result, failure) -> {
+            if (failure == null) {
+                complete(result);
+            } else {
+                completeExceptionally(failure);
+            }
+            // the loser of the race with the starting thread invokes the continuation
+            if (!STARTED.compareAndSet(this, 0, 1)) {
+                continuation.run();
+            }
+        });
+        return STARTED.compareAndSet(this, 0, 1);
+    }
+
+    @Override
+    public void run() {
+        start(() -> {
+        });
+    }
+}
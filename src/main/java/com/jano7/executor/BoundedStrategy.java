@@ -24,5 +24,18 @@ SOFTWARE.
 package com.jano7.executor;
 
 public enum BoundedStrategy {
-    REJECT, BLOCK
+    REJECT,
+    BLOCK,
+    /**
+     * Drops the oldest task for the key which has not started yet. Applicable to the per-key limit only; the new task
+     * is rejected if all the tasks counted against the limit have started.
+     */
+    DROP_OLDEST,
+    /**
+     * Runs the task on the submitting thread once the previously submitted tasks for the key have completed, i.e. the
+     * submitting thread waits (uninterruptibly) for the turn of the key and then executes the task itself, which
+     * throttles the producer by the work of the key. Applicable to the per-key limit only. A task submitting to its
+     * own key which has reached the limit is rejected, as it would wait for itself (as with {@link #BLOCK}).
+     */
+    CALLER_RUNS
 }
@@ -0,0 +1,80 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BinaryOperator;
+
+import static com.jano7.executor.Util.checkNotNull;
+
+// a queued task which can be replaced or merged with a newer one until it starts
+final class ConflatedTask implements Runnable {
+
+    private static final AtomicReferenceFieldUpdater<ConflatedTask, Runnable> TASK =
+            AtomicReferenceFieldUpdater.newUpdater(ConflatedTask.class, Runnable.class, "task");
+
+    private static final Runnable STARTED = () -> {
+    };
+
+    final Object tag;
+    private volatile Runnable task;
+
+    ConflatedTask(Runnable task, Object tag) {
+        this.tag = tag;
+        this.task = task;
+    }
+
+    /**
+     * @return false if the task has already started
+     */
+    boolean merge(Runnable newer, BinaryOperator<Runnable> merge) {
+        while (true) {
+            Runnable queued = task;
+            if (queued == STARTED) {
+                return false;
+            }
+            Runnable merged = merge.apply(queued, newer);
+            checkNotNull(merged);
+            if (TASK.compareAndSet(this, queued, merged)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return null if the task has already started
+     */
+    Runnable take() {
+        Runnable taken = TASK.getAndSet(this, STARTED);
+        return taken == STARTED ? null : taken;
+    }
+
+    @Override
+    public void run() {
+        Runnable taken = take();
+        if (taken != null) {
+            taken.run();
+        }
+    }
+}
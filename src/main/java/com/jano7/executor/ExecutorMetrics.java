@@ -0,0 +1,162 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms of a runner or an executor, optionally exposed as an MXBean.
+ * <pre>{@code
+ * ExecutorMetrics metrics = new ExecutorMetrics();
+ * KeySequentialExecutor executor = new KeySequentialExecutor(underlyingExecutor, exceptionHandler, 1, metrics);
+ * metrics.register(new ObjectName("com.jano7.executor:type=KeySequentialExecutor,name=orders"));
+ * }</pre>
+ */
+public final class ExecutorMetrics implements Instrumentation<Object>, ExecutorMetricsMXBean {
+
+    private final LongAdder activeKeys = new LongAdder();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dispatches = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    @Override
+    public void onActivate(Object key) {
+        activeKeys.increment();
+    }
+
+    @Override
+    public void onEnqueue(Object key) {
+        enqueued.increment();
+    }
+
+    @Override
+    public void onDispatch(Object key) {
+        dispatches.increment();
+    }
+
+    @Override
+    public void onStart(Object key, long queueWaitNanos) {
+        started.increment();
+        queueWait.record(queueWaitNanos);
+    }
+
+    @Override
+    public void onFinish(Object key, long runNanos) {
+        completed.increment();
+        runTime.record(runNanos);
+    }
+
+    @Override
+    public void onCancel(Object key) {
+        cancelled.increment();
+    }
+
+    @Override
+    public void onRetire(Object key) {
+        activeKeys.decrement();
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(
+                getActiveKeys(),
+                getQueuedTasks(),
+                getEnqueuedTasks(),
+                getDispatches(),
+                getCompletedTasks(),
+                queueWait.snapshot(),
+                runTime.snapshot()
+        );
+    }
+
+    public void register(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    }
+
+    public void unregister(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+
+    @Override
+    public long getActiveKeys() {
+        // the counters are not updated atomically, a snapshot may be slightly off
+        return Math.max(0, activeKeys.sum());
+    }
+
+    @Override
+    public long getQueuedTasks() {
+        return Math.max(0, enqueued.sum() - started.sum() - cancelled.sum());
+    }
+
+    @Override
+    public long getEnqueuedTasks() {
+        return enqueued.sum();
+    }
+
+    @Override
+    public long getDispatches() {
+        return dispatches.sum();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getQueueWaitNanos50thPercentile() {
+        return queueWait.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getQueueWaitNanos99thPercentile() {
+        return queueWait.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getQueueWaitNanos999thPercentile() {
+        return queueWait.snapshot().getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getRunNanos50thPercentile() {
+        return runTime.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getRunNanos99thPercentile() {
+        return runTime.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getRunNanos999thPercentile() {
+        return runTime.snapshot().getValueAtPercentile(99.9);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+// a single timer thread; the timeouts are hashed onto a wheel of buckets by their deadline, so scheduling and
+// cancelling are constant time regardless of the number of pending timeouts, at the price of the tick precision
+final class HashedWheelTimer implements Runnable {
+
+    static final class Bucket {
+
+        ScheduledKeyTask<?> head;
+        ScheduledKeyTask<?> tail;
+
+        void add(ScheduledKeyTask<?> timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(ScheduledKeyTask<?> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final ConcurrentLinkedQueue<ScheduledKeyTask<?>> scheduled = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ScheduledKeyTask<?>> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startTime = System.nanoTime();
+    private final Thread thread;
+    private long tick = 0; // timer thread only
+    private volatile boolean stopped = false;
+
+    HashedWheelTimer(long tickNanos, int ticksPerWheel, ThreadFactory threadFactory) {
+        if (tickNanos < 1) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        }
+        if (ticksPerWheel < 1 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30");
+        }
+        this.tickNanos = tickNanos;
+        int size = Integer.highestOneBit(ticksPerWheel);
+        this.wheel = new Bucket[size == ticksPerWheel ? size : size << 1];
+        this.mask = wheel.length - 1;
+        for (int i = 0; i < wheel.length; ++i) {
+            wheel[i] = new Bucket();
+        }
+        this.thread = threadFactory.newThread(this);
+        thread.start();
+    }
+
+    /**
+     * @return false if the timer has been stopped
+     */
+    boolean schedule(ScheduledKeyTask<?> timeout) {
+        if (stopped) {
+            return false;
+        }
+        scheduled.offer(timeout);
+        // the timer thread may have collected the pending timeouts already
+        return !stopped || !scheduled.remove(timeout);
+    }
+
+    void cancel(ScheduledKeyTask<?> timeout) {
+        if (!stopped) {
+            cancelled.offer(timeout);
+        }
+    }
+
+    void stop() throws InterruptedException {
+        stopped = true;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            thread.join();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!stopped) {
+            long tickDeadline = startTime + (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = tickDeadline - System.nanoTime()) > 0 && !stopped) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (stopped) {
+                break;
+            }
+            transferScheduled();
+            removeCancelled();
+            expire(wheel[(int) (tick & mask)]);
+            ++tick;
+        }
+        for (Bucket bucket : wheel) {
+            ScheduledKeyTask<?> timeout;
+            while ((timeout = bucket.head) != null) {
+                bucket.remove(timeout);
+                timeout.cancel(false);
+            }
+        }
+        ScheduledKeyTask<?> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            timeout.cancel(false);
+        }
+        cancelled.clear();
+    }
+
+    private void transferScheduled() {
+        ScheduledKeyTask<?> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.isDone()) {
+                continue;
+            }
+            long ticks = (timeout.deadline - startTime) / tickNanos;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            // the timeouts already due are expired by the current tick
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        ScheduledKeyTask<?> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        ScheduledKeyTask<?> timeout = bucket.head;
+        while (timeout != null) {
+            ScheduledKeyTask<?> next = timeout.next;
+            if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                timeout.expire();
+            } else {
+                --timeout.remainingRounds;
+            }
+            timeout = next;
+        }
+    }
+}
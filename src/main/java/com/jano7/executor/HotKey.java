@@ -0,0 +1,69 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.Objects;
+
+public final class HotKey<Key> {
+
+    private final Key key;
+    private final long weight;
+    private final long error;
+    private final long backlog;
+
+    HotKey(Key key, long weight, long error, long backlog) {
+        this.key = key;
+        this.weight = weight;
+        this.error = error;
+        this.backlog = backlog;
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    /**
+     * @return the estimated number of submitted tasks, or their run time in nanoseconds; overestimated by at most
+     * {@link #getError()}
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getError() {
+        return error;
+    }
+
+    /**
+     * @return the number of queued tasks for the key counted since the key has been monitored
+     */
+    public long getBacklog() {
+        return backlog;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toString(key) + " (weight=" + weight + ", error=" + error + ", backlog=" + backlog + ")";
+    }
+}
@@ -0,0 +1,158 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tracks the keys with the most submitted tasks, the longest backlog and the longest cumulative run time in a bounded
+ * memory, and notifies a listener when the backlog of a key reaches a threshold. Plugs into a runner or an executor
+ * as the {@link Instrumentation}.
+ * <p>
+ * The keys are striped over independent Space-Saving summaries of the configured capacity each, so the submissions
+ * for unrelated keys rarely contend. The reported figures are estimates: a key which has been evicted from a summary
+ * loses its backlog and run time.
+ */
+public final class HotKeySampler<Key> implements Instrumentation<Key> {
+
+    private static final class Stripe<Key> {
+
+        final SpaceSaving<Key> submissions;
+        final SpaceSaving<Key> runTimes;
+
+        Stripe(int capacity) {
+            submissions = new SpaceSaving<>(capacity);
+            runTimes = new SpaceSaving<>(capacity);
+        }
+    }
+
+    private final Stripe<Key>[] stripes;
+    private final long backlogThreshold;
+    private final BacklogListener<? super Key> listener;
+
+    public HotKeySampler(int capacity) {
+        this(capacity, Long.MAX_VALUE, (key, backlog) -> {
+        });
+    }
+
+    /**
+     * @param capacity         the number of keys monitored by each stripe
+     * @param backlogThreshold the backlog of a key which triggers the listener
+     */
+    @SuppressWarnings("unchecked")
+    public HotKeySampler(int capacity, long backlogThreshold, BacklogListener<? super Key> listener) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+        this.stripes = (Stripe<Key>[]) new Stripe<?>[stripeCount];
+        for (int i = 0; i < stripeCount; ++i) {
+            stripes[i] = new Stripe<>(capacity);
+        }
+        this.backlogThreshold = backlogThreshold;
+        this.listener = listener;
+    }
+
+    private Stripe<Key> stripe(Key key) {
+        int h = key == null ? 0 : key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    @Override
+    public void onEnqueue(Key key) {
+        Stripe<Key> stripe = stripe(key);
+        long backlog;
+        synchronized (stripe) {
+            backlog = ++stripe.submissions.add(key, 1).backlog;
+        }
+        if (backlog == backlogThreshold) {
+            listener.onBacklog(key, backlog);
+        }
+    }
+
+    @Override
+    public void onStart(Key key, long queueWaitNanos) {
+        dequeued(key);
+    }
+
+    @Override
+    public void onCancel(Key key) {
+        dequeued(key);
+    }
+
+    @Override
+    public void onFinish(Key key, long runNanos) {
+        Stripe<Key> stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.runTimes.add(key, runNanos);
+        }
+    }
+
+    private void dequeued(Key key) {
+        Stripe<Key> stripe = stripe(key);
+        synchronized (stripe) {
+            SpaceSaving.Counter<Key> counter = stripe.submissions.get(key);
+            if (counter != null) {
+                // may go below zero for a moment, the runner reports the enqueue after queueing the task
+                --counter.backlog;
+            }
+        }
+    }
+
+    public List<HotKey<Key>> topBySubmissions(int k) {
+        return top(k, stripe -> stripe.submissions, HotKey::getWeight);
+    }
+
+    public List<HotKey<Key>> topByBacklog(int k) {
+        return top(k, stripe -> stripe.submissions, HotKey::getBacklog);
+    }
+
+    /**
+     * @return the keys with the longest cumulative run time, the weight is in nanoseconds
+     */
+    public List<HotKey<Key>> topByRunTime(int k) {
+        return top(k, stripe -> stripe.runTimes, HotKey::getWeight);
+    }
+
+    private List<HotKey<Key>> top(
+            int k,
+            Function<Stripe<Key>, SpaceSaving<Key>> summary,
+            ToLongFunction<HotKey<Key>> order
+    ) {
+        List<HotKey<Key>> keys = new ArrayList<>();
+        for (Stripe<Key> stripe : stripes) {
+            synchronized (stripe) {
+                for (SpaceSaving.Counter<Key> counter : summary.apply(stripe).counters()) {
+                    keys.add(new HotKey<>(counter.key, counter.weight, counter.error, counter.backlog));
+                }
+            }
+        }
+        keys.sort(Comparator.comparingLong(order).reversed());
+        return keys.size() > k ? new ArrayList<>(keys.subList(0, k)) : keys;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+/**
+ * Callbacks invoked by a {@link KeySequentialRunner} on the thread which submits or executes the task. The
+ * instrumentation is off unless passed to the runner (or an executor) constructor; the implementations should be
+ * cheap and must not throw.
+ */
+public interface Instrumentation<Key> {
+
+    /**
+     * The key has got its first task after being idle.
+     */
+    default void onActivate(Key key) {
+    }
+
+    default void onEnqueue(Key key) {
+    }
+
+    /**
+     * The tasks for the key have been handed over to the underlying executor.
+     */
+    default void onDispatch(Key key) {
+    }
+
+    default void onStart(Key key, long queueWaitNanos) {
+    }
+
+    /**
+     * @param runNanos the time from the start of the task; for an asynchronous task until its stage completes
+     */
+    default void onFinish(Key key, long runNanos) {
+    }
+
+    /**
+     * A queued task for the key has been cancelled, it is never going to start.
+     */
+    default void onCancel(Key key) {
+    }
+
+    /**
+     * The key has no more tasks to execute.
+     */
+    default void onRetire(Key key) {
+    }
+
+    static <Key> Instrumentation<Key> compose(Instrumentation<? super Key> first, Instrumentation<? super Key> second) {
+        return new Instrumentation<Key>() {
+            @Override
+            public void onActivate(Key key) {
+                first.onActivate(key);
+                second.onActivate(key);
+            }
+
+            @Override
+            public void onEnqueue(Key key) {
+                first.onEnqueue(key);
+                second.onEnqueue(key);
+            }
+
+            @Override
+            public void onDispatch(Key key) {
+                first.onDispatch(key);
+                second.onDispatch(key);
+            }
+
+            @Override
+            public void onStart(Key key, long queueWaitNanos) {
+                first.onStart(key, queueWaitNanos);
+                second.onStart(key, queueWaitNanos);
+            }
+
+            @Override
+            public void onFinish(Key key, long runNanos) {
+                first.onFinish(key, runNanos);
+                second.onFinish(key, runNanos);
+            }
+
+            @Override
+            public void onCancel(Key key) {
+                first.onCancel(key);
+                second.onCancel(key);
+            }
+
+            @Override
+            public void onRetire(Key key) {
+                first.onRetire(key);
+                second.onRetire(key);
+            }
+        };
+    }
+}
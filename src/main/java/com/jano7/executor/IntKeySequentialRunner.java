@@ -0,0 +1,66 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link KeySequentialRunner} for primitive int keys, see {@link LongKeySequentialRunner}.
+ */
+public final class IntKeySequentialRunner {
+
+    private final LongKeySequentialRunner runner;
+
+    public IntKeySequentialRunner(Executor underlyingExecutor) {
+        this(underlyingExecutor, new TaskExceptionHandler<Integer>() {
+        });
+    }
+
+    public IntKeySequentialRunner(Executor underlyingExecutor, TaskExceptionHandler<Integer> exceptionHandler) {
+        this(underlyingExecutor, exceptionHandler, 1);
+    }
+
+    public IntKeySequentialRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Integer> exceptionHandler,
+            int maxTasksPerTurn
+    ) {
+        runner = new LongKeySequentialRunner(underlyingExecutor, new TaskExceptionHandler<Long>() {
+            @Override
+            public void onException(Long key, Throwable cause) {
+                exceptionHandler.onException(key.intValue(), cause);
+            }
+        }, maxTasksPerTurn);
+    }
+
+    public <T> CompletableFuture<T> submit(int key, Callable<T> task) {
+        return runner.submit(key, task);
+    }
+
+    public void run(int key, Runnable task) {
+        runner.run(key, task);
+    }
+}
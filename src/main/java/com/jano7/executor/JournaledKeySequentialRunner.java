@@ -0,0 +1,414 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Delivers the payloads submitted for a key to the consumer sequentially, on a {@link KeySequentialRunner}, and
+ * records them in a write-ahead journal so that the unfinished ones survive a restart. A submission is appended to a
+ * memory-mapped segment of the journal, and its completion once the consumer returns (or throws); a new instance over
+ * the same directory replays the unfinished payloads in the order of submission before accepting new ones. The
+ * payloads are delivered at least once, i.e. the ones which were being consumed when the process died are replayed.
+ * <p>
+ * A submission survives a crash of the JVM once {@code submit} returns, the mapped pages belong to the operating
+ * system; it survives a crash of the operating system once its segment is forced to the disk, which happens on
+ * {@link #sync()}, every commit interval, when the segment is full and on {@link #close()}. A segment is deleted when
+ * the payloads submitted to it and to the older segments have completed.
+ */
+public final class JournaledKeySequentialRunner<Key, T> implements AutoCloseable {
+
+    private static final byte SUBMITTED = 1;
+    private static final byte COMPLETED = 2;
+    private static final int HEADER = 8; // the length and the checksum of a record
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-\\d{20}\\.journal");
+
+    private static final class Segment {
+
+        final Path path;
+        final MappedByteBuffer buffer;
+        // the unfinished submissions, plus one while the segment is written to
+        final AtomicInteger references;
+
+        Segment(Path path, MappedByteBuffer buffer, int references) {
+            this.path = path;
+            this.buffer = buffer;
+            this.references = new AtomicInteger(references);
+        }
+    }
+
+    private final class JournaledTask implements Runnable {
+
+        private final long sequence;
+        private final Key key;
+        private final T payload;
+        private final Segment segment;
+
+        JournaledTask(long sequence, Key key, T payload, Segment segment) {
+            this.sequence = sequence;
+            this.key = key;
+            this.payload = payload;
+            this.segment = segment;
+        }
+
+        @Override
+        public void run() {
+            try {
+                consumer.accept(key, payload);
+            } finally {
+                completed(this);
+            }
+        }
+    }
+
+    private final KeySequentialRunner<Key> runner;
+    private final Path directory;
+    private final JournalCodec<Key> keyCodec;
+    private final JournalCodec<T> payloadCodec;
+    private final BiConsumer<? super Key, ? super T> consumer;
+    private final int segmentSize;
+    private final ScheduledFuture<?> commits;
+    private final AtomicLong nextSequence = new AtomicLong();
+    // guarded by this
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>(); // the oldest first, the active one last
+    private Segment sealed; // to be forced and released by the thread which has rotated it
+    private long nextSegment = 0;
+    private boolean closed = false;
+
+    public JournaledKeySequentialRunner(
+            KeySequentialRunner<Key> runner,
+            Path directory,
+            JournalCodec<Key> keyCodec,
+            JournalCodec<T> payloadCodec,
+            BiConsumer<? super Key, ? super T> consumer
+    ) throws IOException {
+        this(runner, directory, keyCodec, payloadCodec, consumer, 64 << 20, null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays the unfinished payloads found in the directory.
+     *
+     * @param segmentSize    the size of a journal file, which limits the size of a record
+     * @param scheduler      forces the journal to the disk every commitInterval; if null, the journal is forced only
+     *                       on {@link #sync()}, when a segment is full and on {@link #close()}
+     * @param commitInterval the upper bound on the time a submission may be lost by a crash of the operating system
+     */
+    public JournaledKeySequentialRunner(
+            KeySequentialRunner<Key> runner,
+            Path directory,
+            JournalCodec<Key> keyCodec,
+            JournalCodec<T> payloadCodec,
+            BiConsumer<? super Key, ? super T> consumer,
+            int segmentSize,
+            ScheduledExecutorService scheduler,
+            long commitInterval,
+            TimeUnit unit
+    ) throws IOException {
+        if (segmentSize < 64) {
+            throw new IllegalArgumentException("segmentSize must be at least 64 bytes");
+        }
+        this.runner = runner;
+        this.directory = Files.createDirectories(directory);
+        this.keyCodec = keyCodec;
+        this.payloadCodec = payloadCodec;
+        this.consumer = consumer;
+        this.segmentSize = segmentSize;
+        List<JournaledTask> unfinished;
+        synchronized (this) {
+            unfinished = recover();
+            segments.add(openSegment());
+        }
+        for (JournaledTask task : unfinished) {
+            runner.run(task.key, task);
+        }
+        this.commits = scheduler == null
+                ? null
+                : scheduler.scheduleWithFixedDelay(this::sync, commitInterval, commitInterval, unit);
+    }
+
+    /**
+     * The payload is journaled before it is queued for the key. The payloads submitted for a key concurrently, i.e.
+     * with no order among them, may be replayed in another order than they have been queued in.
+     *
+     * @throws IllegalArgumentException if the record doesn't fit in a segment
+     * @throws UncheckedIOException     if the journal can't be written
+     */
+    public void submit(Key key, T payload) {
+        byte[] keyBytes = keyCodec.encode(key);
+        byte[] payloadBytes = payloadCodec.encode(payload);
+        int length = HEADER + 1 + 8 + 4 + keyBytes.length + payloadBytes.length;
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("record of " + length + " bytes exceeds the segment size");
+        }
+        // the sequences of the payloads submitted one after another for a key follow the order of the queue, which
+        // is the order of the replay; the journal is held just to copy the record, the runner is called holding no lock
+        long sequence = nextSequence.getAndIncrement();
+        byte[] record = record(SUBMITTED, sequence, keyBytes, payloadBytes);
+        Segment segment;
+        Segment full;
+        synchronized (this) {
+            if (closed) {
+                throw new RejectedExecutionException("journal closed");
+            }
+            segment = append(record);
+            segment.references.incrementAndGet();
+            full = takeSealed();
+        }
+        if (full != null) {
+            seal(full);
+        }
+        JournaledTask task = new JournaledTask(sequence, key, payload, segment);
+        try {
+            runner.run(key, task);
+        } catch (RejectedExecutionException e) {
+            // not to be replayed
+            completed(task);
+            throw e;
+        }
+    }
+
+    /**
+     * Forces the journal to the disk.
+     */
+    public void sync() {
+        MappedByteBuffer active;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            active = segments.getLast().buffer;
+        }
+        active.force();
+    }
+
+    /**
+     * Rejects new submissions and forces the journal to the disk. The payloads which complete afterwards are replayed
+     * by the next instance over the directory.
+     */
+    @Override
+    public void close() {
+        MappedByteBuffer active;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            active = segments.getLast().buffer;
+        }
+        if (commits != null) {
+            commits.cancel(false);
+        }
+        active.force();
+    }
+
+    private void completed(JournaledTask task) {
+        byte[] record = record(COMPLETED, task.sequence, null, null);
+        Segment full;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            append(record);
+            full = takeSealed();
+        }
+        if (full != null) {
+            seal(full);
+        }
+        release(task.segment);
+    }
+
+    private static byte[] record(byte type, long sequence, byte[] key, byte[] payload) {
+        int length = 1 + 8 + (type == SUBMITTED ? 4 + key.length + payload.length : 0);
+        ByteBuffer record = ByteBuffer.allocate(HEADER + length);
+        record.position(HEADER);
+        record.put(type).putLong(sequence);
+        if (type == SUBMITTED) {
+            record.putInt(key.length).put(key).put(payload);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), HEADER, length);
+        return record.putInt(0, length).putInt(4, (int) checksum.getValue()).array();
+    }
+
+    // holding the monitor; returns the segment the record has been appended to
+    private Segment append(byte[] record) {
+        Segment segment = segments.getLast();
+        if (segment.buffer.remaining() < record.length) {
+            segment = rotate();
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        int position = buffer.position();
+        buffer.position(position + 4);
+        buffer.put(record, 4, record.length - 4);
+        // the length goes last, a zero length ends the records of a segment
+        buffer.putInt(position, record.length - HEADER);
+        return segment;
+    }
+
+    // holding the monitor
+    private Segment rotate() {
+        Segment active;
+        try {
+            active = openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sealed = segments.getLast();
+        segments.add(active);
+        return active;
+    }
+
+    // holding the monitor
+    private Segment takeSealed() {
+        Segment full = sealed;
+        sealed = null;
+        return full;
+    }
+
+    // not holding the monitor, forcing a segment takes long
+    private void seal(Segment full) {
+        full.buffer.force();
+        release(full);
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = directory.resolve(String.format("segment-%020d.journal", nextSegment++));
+        try (FileChannel channel = FileChannel.open(path, CREATE_NEW, READ, WRITE)) {
+            // the mapping extends the file with zeros and stays valid when the channel is closed
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize), 1);
+        }
+    }
+
+    private void release(Segment segment) {
+        if (segment.references.decrementAndGet() == 0) {
+            synchronized (this) {
+                // a newer segment may hold the completions of the submissions in the older ones
+                Segment oldest;
+                while ((oldest = segments.peekFirst()) != null && oldest.references.get() == 0) {
+                    segments.pollFirst();
+                    try {
+                        Files.deleteIfExists(oldest.path);
+                    } catch (IOException ignored) {
+                        // its completed payloads are replayed by the next instance
+                    }
+                }
+            }
+        }
+    }
+
+    // holding the monitor
+    private List<JournaledTask> recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        // the records of the unfinished submissions by sequence, in the order of submission
+        Map<Long, ByteBuffer> unfinished = new TreeMap<>();
+        Map<Long, Segment> segmentOf = new HashMap<>();
+        CRC32 checksum = new CRC32();
+        for (Path path : paths) {
+            Segment segment;
+            try (FileChannel channel = FileChannel.open(path, READ)) {
+                segment = new Segment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0);
+            }
+            segments.add(segment);
+            ByteBuffer buffer = segment.buffer;
+            int position = 0;
+            while (position + HEADER <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length < 9 || length > buffer.capacity() - position - HEADER) {
+                    // the end of the records, or a torn one
+                    break;
+                }
+                ByteBuffer record = buffer.duplicate();
+                record.limit(position + HEADER + length).position(position + HEADER);
+                checksum.reset();
+                checksum.update(record.duplicate());
+                if ((int) checksum.getValue() != buffer.getInt(position + 4)) {
+                    break;
+                }
+                byte type = record.get();
+                long sequence = record.getLong();
+                if (type == SUBMITTED) {
+                    unfinished.put(sequence, record.slice());
+                    segmentOf.put(sequence, segment);
+                } else {
+                    unfinished.remove(sequence);
+                    segmentOf.remove(sequence);
+                }
+                nextSequence.set(Math.max(nextSequence.get(), sequence + 1));
+                position += HEADER + length;
+            }
+            String name = path.getFileName().toString();
+            nextSegment = Long.parseLong(name.substring(8, 28)) + 1;
+        }
+        List<JournaledTask> tasks = new ArrayList<>(unfinished.size());
+        for (Map.Entry<Long, ByteBuffer> submitted : unfinished.entrySet()) {
+            ByteBuffer record = submitted.getValue();
+            byte[] key = new byte[record.getInt()];
+            record.get(key);
+            byte[] payload = new byte[record.remaining()];
+            record.get(payload);
+            Segment segment = segmentOf.get(submitted.getKey());
+            segment.references.incrementAndGet();
+            tasks.add(new JournaledTask(
+                    submitted.getKey(), keyCodec.decode(key), payloadCodec.decode(payload), segment));
+        }
+        Segment oldest;
+        while ((oldest = segments.peekFirst()) != null && oldest.references.get() == 0) {
+            segments.pollFirst();
+            Files.deleteIfExists(oldest.path);
+        }
+        return tasks;
+    }
+}
@@ -35,6 +35,10 @@ public final class KeyRunnable<Key> implements Runnable {
         this.runnable = runnable;
     }
 
+    public Key getKey() {
+        return key;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
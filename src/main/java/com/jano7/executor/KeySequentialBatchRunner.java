@@ -0,0 +1,253 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Delivers the items submitted for a key to the consumer in batches. The batches for a key are delivered sequentially
+ * in the order of submission, the batches for different keys in parallel by the underlying executor. A batch holds the
+ * items queued for the key when it is taken, at most maxBatchSize of them. Optionally, every batch lingers to let more
+ * items join it: it is taken once it is full, or once the linger time has passed since the previous batch of the key
+ * (or since the first item of an idle key).
+ */
+public final class KeySequentialBatchRunner<Key, T> {
+
+    private final class KeyBatcher implements Runnable {
+
+        private final TaskQueue<T> items = new TaskQueue<>();
+        private final AtomicInteger pending = new AtomicInteger(0); // may lag behind the queue
+        private final AtomicLong lingering = new AtomicLong(0); // the window of the lingering batch; 0 if none
+        private final Key key;
+        private final Object mapKey;
+        private long lingerWindows = 0; // changed by the thread which takes the batches
+
+        KeyBatcher(Key key, Object mapKey) {
+            this.key = key;
+            this.mapKey = mapKey;
+        }
+
+        // invoked once by the thread which has put the batcher to the map
+        void start() {
+            try {
+                next();
+            } catch (RejectedExecutionException e) {
+                List<T> accepted = items.rejectNew();
+                // the first item belongs to the starting thread, deliver the ones accepted in the meantime
+                deliverAll(accepted.subList(1, accepted.size()));
+                retire(this);
+                throw new RejectedExecutionException(rejection(), e);
+            }
+        }
+
+        // invoked by a producer once the item is queued
+        void added() {
+            if (pending.incrementAndGet() >= maxBatchSize) {
+                long window = lingering.get();
+                if (window != 0) {
+                    flush(window);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            List<T> batch = new ArrayList<>(Math.min(maxBatchSize, 16));
+            T item;
+            while (batch.size() < maxBatchSize && (item = items.dequeue()) != null) {
+                batch.add(item);
+            }
+            pending.addAndGet(-batch.size());
+            deliver(batch);
+            if (items.retireIfEmpty()) {
+                retire(this);
+            } else {
+                try {
+                    next();
+                } catch (RejectedExecutionException e) {
+                    rejected();
+                }
+            }
+        }
+
+        // a full batch is taken right away, otherwise it lingers until it fills up or the linger time passes
+        private void next() {
+            if (lingerNanos == 0 || pending.get() >= maxBatchSize) {
+                underlyingExecutor.execute(this);
+                return;
+            }
+            long window = ++lingerWindows;
+            lingering.set(window);
+            try {
+                scheduler.schedule(() -> flush(window), lingerNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                if (lingering.compareAndSet(window, 0)) {
+                    throw e;
+                }
+                // a producer has filled the batch up and taken it in the meantime
+                return;
+            }
+            // a producer might have filled the batch up before it started to linger
+            if (pending.get() >= maxBatchSize) {
+                flush(window);
+            }
+        }
+
+        // takes the lingering batch unless it has been taken already
+        private void flush(long window) {
+            if (lingering.compareAndSet(window, 0)) {
+                try {
+                    underlyingExecutor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    rejected();
+                }
+            }
+        }
+
+        private void rejected() {
+            // deliver the queued items on this thread when the execution is rejected
+            deliverAll(items.rejectNew());
+            retire(this);
+        }
+
+        private void deliverAll(List<T> queued) {
+            for (int i = 0; i < queued.size(); i += maxBatchSize) {
+                deliver(new ArrayList<>(queued.subList(i, Math.min(i + maxBatchSize, queued.size()))));
+            }
+        }
+
+        private void deliver(List<T> batch) {
+            try {
+                consumer.accept(key, batch);
+            } catch (Throwable t) {
+                exceptionHandler.onException(key, t);
+            }
+        }
+
+        private String rejection() {
+            return "item for the key '" + key + "' rejected";
+        }
+    }
+
+    // ConcurrentHashMap does not permit null keys
+    private static final Object NULL_KEY = new Object();
+
+    private final Executor underlyingExecutor;
+    private final TaskExceptionHandler<Key> exceptionHandler;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final long lingerNanos;
+    private final BiConsumer<? super Key, ? super List<T>> consumer;
+    private final ConcurrentHashMap<Object, KeyBatcher> keyBatchers = new ConcurrentHashMap<>();
+
+    public KeySequentialBatchRunner(
+            Executor underlyingExecutor,
+            int maxBatchSize,
+            BiConsumer<? super Key, ? super List<T>> consumer
+    ) {
+        this(underlyingExecutor, new TaskExceptionHandler<Key>() {
+        }, maxBatchSize, consumer);
+    }
+
+    public KeySequentialBatchRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Key> exceptionHandler,
+            int maxBatchSize,
+            BiConsumer<? super Key, ? super List<T>> consumer
+    ) {
+        this(underlyingExecutor, exceptionHandler, maxBatchSize, null, 0, TimeUnit.NANOSECONDS, consumer);
+    }
+
+    /**
+     * @param scheduler takes the batches which haven't filled up within the linger time
+     * @param linger    the time a batch waits for more items unless it is full; 0 takes the batches right away
+     */
+    public KeySequentialBatchRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Key> exceptionHandler,
+            int maxBatchSize,
+            ScheduledExecutorService scheduler,
+            long linger,
+            TimeUnit unit,
+            BiConsumer<? super Key, ? super List<T>> consumer
+    ) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        if (linger < 0) {
+            throw new IllegalArgumentException("linger must not be negative");
+        }
+        if (linger > 0 && scheduler == null) {
+            throw new IllegalArgumentException("linger requires a scheduler");
+        }
+        this.underlyingExecutor = underlyingExecutor;
+        this.exceptionHandler = exceptionHandler;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+        this.lingerNanos = unit.toNanos(linger);
+        this.consumer = consumer;
+    }
+
+    public void submit(Key key, T item) {
+        if (item == null) {
+            throw new NullPointerException("item is null");
+        }
+        Object mapKey = key == null ? NULL_KEY : key;
+        while (true) {
+            KeyBatcher batcher = keyBatchers.get(mapKey);
+            if (batcher == null) {
+                KeyBatcher created = new KeyBatcher(key, mapKey);
+                created.items.enqueue(item);
+                created.pending.incrementAndGet();
+                batcher = keyBatchers.putIfAbsent(mapKey, created);
+                if (batcher == null) {
+                    created.start();
+                    return;
+                }
+            }
+            if (batcher.items.enqueue(item)) {
+                batcher.added();
+                return;
+            }
+            if (!batcher.items.isRetired()) {
+                throw new RejectedExecutionException(batcher.rejection());
+            }
+            // the batcher has delivered its items and is about to be removed
+            retire(batcher);
+        }
+    }
+
+    private void retire(KeyBatcher batcher) {
+        keyBatchers.remove(batcher.mapKey, batcher);
+    }
+}
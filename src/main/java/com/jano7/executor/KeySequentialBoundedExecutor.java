@@ -23,26 +23,219 @@ SOFTWARE.
 */
 package com.jano7.executor;
 
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
-import static com.jano7.executor.BoundedStrategy.BLOCK;
+import static com.jano7.executor.BoundedStrategy.*;
 import static com.jano7.executor.Util.checkNotNull;
 
 public final class KeySequentialBoundedExecutor implements DrainableExecutor {
 
-    private final int maxTasks;
-    private final Semaphore semaphore;
-    private final KeySequentialExecutor keySequentialExecutor;
+    private static final class KeyLimit {
+
+        private final Object key; // the map key
+        private int users = 0; // guarded by the keyLimits map; the threads holding or waiting for the limit
+        private int tasks = 0; // guarded by this; the tasks counted against the limit
+        private final ArrayDeque<BoundedTask> pending = new ArrayDeque<>(); // guarded by this; DROP_OLDEST only
+
+        KeyLimit(Object key) {
+            this.key = key;
+        }
+    }
+
+    private static final int PENDING = 0;
+    private static final int STARTED = 1;
+    private static final int DROPPED = 2;
+
+    private static final AtomicIntegerFieldUpdater<BoundedTask> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(BoundedTask.class, "state");
+
+    private final class BoundedTask implements Runnable {
+
+        private final Runnable task;
+        private final KeyLimit limit;
+        private long accepted;
+        volatile int state = PENDING;
+
+        BoundedTask(Runnable task, KeyLimit limit) {
+            this.task = task;
+            this.limit = limit;
+        }
+
+        @Override
+        public void run() {
+            if (limit != null && !start()) {
+                // the permits have been released when dropped
+                return;
+            }
+            try {
+                if (limit == null) {
+                    task.run();
+                } else {
+                    runAs(limit, task);
+                }
+            } finally {
+                if (limit != null) {
+                    releaseKeyTask(this);
+                }
+                semaphore.release();
+                if (adaptiveLimit != null && adaptiveLimit.record(System.nanoTime() - accepted)) {
+                    adjustLimit();
+                }
+            }
+        }
+
+        // the latency seen by the adaptive limit excludes the time the producer has waited for the limits
+        BoundedTask accept() {
+            if (adaptiveLimit != null) {
+                accepted = System.nanoTime();
+            }
+            return this;
+        }
+
+        private boolean start() {
+            if (!STATE.compareAndSet(this, PENDING, STARTED)) {
+                return false;
+            }
+            if (onKeyTasksExceeded == DROP_OLDEST) {
+                synchronized (limit) {
+                    limit.pending.remove(this);
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        ResizableSemaphore(int permits) {
+            // fair, i.e. the blocked producers acquire the permits in FIFO order
+            super(permits, true);
+        }
+
+        void reduce(int permits) {
+            reducePermits(permits);
+        }
+    }
+
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    // ConcurrentHashMap does not permit null keys
+    private static final Object NULL_KEY = new Object();
+
+    private final AdaptiveLimit adaptiveLimit;
+    private volatile int maxTasks; // changed holding the monitor of the adaptive limit
+    private boolean limitFrozen = false; // guarded by the adaptive limit
+    private final ResizableSemaphore semaphore;
+    private final int maxTasksPerKey;
+    private final BoundedStrategy onKeyTasksExceeded;
+    private final ConcurrentHashMap<Object, KeyLimit> keyLimits = new ConcurrentHashMap<>();
+    // keyed by the key of a KeyRunnable, or the task itself
+    private final KeySequentialRunner<Object> runner;
     private final Runnable acquire;
-    private boolean drained = false;
+    // the limit of the key whose task the current thread is running
+    private final ThreadLocal<KeyLimit> runningKey = new ThreadLocal<>();
+    private volatile boolean drained = false;
 
     public KeySequentialBoundedExecutor(int maxTasks, BoundedStrategy onTasksExceeded, Executor underlyingExecutor) {
+        this(maxTasks, onTasksExceeded, UNLIMITED, REJECT, underlyingExecutor);
+    }
+
+    /**
+     * @param maxTasksPerKey     the maximum number of tasks for a key which haven't been executed yet, in addition to
+     *                           the overall maxTasks
+     * @param onKeyTasksExceeded the strategy applied when the per-key limit is reached; the overall limit supports
+     *                           {@link BoundedStrategy#REJECT} and {@link BoundedStrategy#BLOCK} only
+     */
+    public KeySequentialBoundedExecutor(
+            int maxTasks,
+            BoundedStrategy onTasksExceeded,
+            int maxTasksPerKey,
+            BoundedStrategy onKeyTasksExceeded,
+            Executor underlyingExecutor
+    ) {
+        this(maxTasks, onTasksExceeded, maxTasksPerKey, onKeyTasksExceeded, underlyingExecutor, null);
+    }
+
+    /**
+     * @param instrumentation notified about the lifecycle of the tasks; null disables the instrumentation
+     */
+    public KeySequentialBoundedExecutor(
+            int maxTasks,
+            BoundedStrategy onTasksExceeded,
+            int maxTasksPerKey,
+            BoundedStrategy onKeyTasksExceeded,
+            Executor underlyingExecutor,
+            Instrumentation<? super Runnable> instrumentation
+    ) {
+        this(maxTasks, null, onTasksExceeded, maxTasksPerKey, onKeyTasksExceeded, underlyingExecutor, instrumentation);
+    }
+
+    /**
+     * @param maxTasks the limit adjusted at runtime to keep the latency of the tasks under a target
+     */
+    public KeySequentialBoundedExecutor(
+            AdaptiveLimit maxTasks,
+            BoundedStrategy onTasksExceeded,
+            Executor underlyingExecutor
+    ) {
+        this(maxTasks, onTasksExceeded, UNLIMITED, REJECT, underlyingExecutor, null);
+    }
+
+    public KeySequentialBoundedExecutor(
+            AdaptiveLimit maxTasks,
+            BoundedStrategy onTasksExceeded,
+            int maxTasksPerKey,
+            BoundedStrategy onKeyTasksExceeded,
+            Executor underlyingExecutor,
+            Instrumentation<? super Runnable> instrumentation
+    ) {
+        this(
+                maxTasks.getLimit(),
+                maxTasks,
+                onTasksExceeded,
+                maxTasksPerKey,
+                onKeyTasksExceeded,
+                underlyingExecutor,
+                instrumentation
+        );
+    }
+
+    private KeySequentialBoundedExecutor(
+            int maxTasks,
+            AdaptiveLimit adaptiveLimit,
+            BoundedStrategy onTasksExceeded,
+            int maxTasksPerKey,
+            BoundedStrategy onKeyTasksExceeded,
+            Executor underlyingExecutor,
+            Instrumentation<? super Runnable> instrumentation
+    ) {
+        if (onTasksExceeded != REJECT && onTasksExceeded != BLOCK) {
+            throw new IllegalArgumentException(onTasksExceeded + " is not supported for the overall limit");
+        }
+        if (maxTasksPerKey < 1) {
+            throw new IllegalArgumentException("maxTasksPerKey must be positive");
+        }
+        this.adaptiveLimit = adaptiveLimit;
         this.maxTasks = maxTasks;
-        this.semaphore = new Semaphore(maxTasks);
-        this.keySequentialExecutor = new KeySequentialExecutor(underlyingExecutor);
+        this.semaphore = new ResizableSemaphore(maxTasks);
+        this.maxTasksPerKey = maxTasksPerKey;
+        this.onKeyTasksExceeded = onKeyTasksExceeded;
+        this.runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<Object>() {
+                },
+                1,
+                instrumentation == null ? null : runnableKeys(instrumentation)
+        );
         this.acquire = onTasksExceeded == BLOCK ? this::blockOnTasksExceeded : this::rejectOnTasksExceeded;
     }
 
@@ -52,42 +245,384 @@ public final class KeySequentialBoundedExecutor implements DrainableExecutor {
 
     private void rejectOnTasksExceeded() {
         if (!semaphore.tryAcquire()) {
-            throw new RejectedExecutionException("task limit of " + maxTasks + " exceeded");
+            throw new RejectedExecutionException("task limit of " + getLimit() + " exceeded");
         }
     }
 
     @Override
     public void execute(Runnable task) {
         checkNotNull(task);
-        synchronized (this) {
-            if (drained) {
-                throw new RejectedExecutionException("executor drained");
-            } else {
-                acquire.run();
+        executeWithStrategy(keyOf(task), task);
+    }
+
+    /**
+     * Executes the task sequentially with the other tasks for the key, including the ones executed as a
+     * {@link KeyRunnable} with an equal key, without wrapping the task in a {@link KeyRunnable}.
+     */
+    public <Key> void execute(Key key, Runnable task) {
+        checkNotNull(task);
+        executeWithStrategy(key, task);
+    }
+
+    /**
+     * Waits for the overall (and the per-key) limit regardless of the configured strategy.
+     *
+     * @return true if the task has been accepted; false if the timeout elapsed
+     */
+    public boolean execute(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(task);
+        return execute(keyOf(task), task, timeout, unit);
+    }
+
+    public <Key> boolean execute(Key key, Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(task);
+        checkNotDrained();
+        if (maxTasksPerKey == UNLIMITED) {
+            if (!semaphore.tryAcquire(timeout, unit)) {
+                return false;
+            }
+            executeAcquired(key, task);
+            return true;
+        } else {
+            return executeLimited(key, task, unit.toNanos(timeout));
+        }
+    }
+
+    private void executeWithStrategy(Object key, Runnable task) {
+        checkNotDrained();
+        if (maxTasksPerKey == UNLIMITED) {
+            acquire.run();
+            executeAcquired(key, task);
+        } else {
+            try {
+                executeLimited(key, task, -1);
+            } catch (InterruptedException e) {
+                // not thrown when waiting without a timeout
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static Object keyOf(Runnable task) {
+        return task instanceof KeyRunnable ? ((KeyRunnable<?>) task).getKey() : task;
+    }
+
+    // the instrumentation sees the keys as before, i.e. a KeyRunnable for a key which is not the task itself
+    private static Instrumentation<Object> runnableKeys(Instrumentation<? super Runnable> instrumentation) {
+        return new Instrumentation<Object>() {
+            @Override
+            public void onActivate(Object key) {
+                instrumentation.onActivate(asRunnable(key));
+            }
+
+            @Override
+            public void onEnqueue(Object key) {
+                instrumentation.onEnqueue(asRunnable(key));
+            }
+
+            @Override
+            public void onDispatch(Object key) {
+                instrumentation.onDispatch(asRunnable(key));
+            }
+
+            @Override
+            public void onStart(Object key, long queueWaitNanos) {
+                instrumentation.onStart(asRunnable(key), queueWaitNanos);
+            }
+
+            @Override
+            public void onFinish(Object key, long runNanos) {
+                instrumentation.onFinish(asRunnable(key), runNanos);
+            }
+
+            @Override
+            public void onCancel(Object key) {
+                instrumentation.onCancel(asRunnable(key));
+            }
+
+            @Override
+            public void onRetire(Object key) {
+                instrumentation.onRetire(asRunnable(key));
+            }
+
+            private Runnable asRunnable(Object key) {
+                // equal to the KeyRunnables with the key, never executed
+                return key instanceof Runnable ? (Runnable) key : new KeyRunnable<>(key, null);
+            }
+        };
+    }
+
+    private void checkNotDrained() {
+        if (drained) {
+            throw new RejectedExecutionException("executor drained");
+        }
+    }
+
+    private void executeAcquired(Object key, Runnable task) {
+        if (drained) {
+            // drained while acquiring the permit
+            semaphore.release();
+            checkNotDrained();
+        }
+        try {
+            runner.run(key, new BoundedTask(task, null).accept());
+        } catch (RejectedExecutionException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    // A negative timeout applies the strategies, otherwise waits for the limits up to the timeout. The slot of the key
+    // is taken before the overall permit, so the producers waiting for a busy key don't hold the permits of the others.
+    private boolean executeLimited(Object key, Runnable task, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        KeyLimit limit = keyLimits.compute(key == null ? NULL_KEY : key, (mapKey, current) -> {
+            KeyLimit l = current == null ? new KeyLimit(mapKey) : current;
+            ++l.users;
+            return l;
+        });
+        BoundedTask bounded = new BoundedTask(task, limit);
+        BoundedTask dropped = null;
+        boolean callerRuns = false;
+        try {
+            synchronized (limit) {
+                if (limit.tasks >= maxTasksPerKey) {
+                    switch (timeoutNanos >= 0 ? BLOCK : onKeyTasksExceeded) {
+                        case BLOCK:
+                            if (timeoutNanos < 0) {
+                                checkNotReentrant(key, limit);
+                                awaitKeyTask(limit);
+                            } else if (!awaitKeyTask(limit, timeoutNanos)) {
+                                releaseKeyLimit(limit);
+                                return false;
+                            }
+                            break;
+                        case DROP_OLDEST:
+                            dropped = dropOldest(key, limit);
+                            break;
+                        case CALLER_RUNS:
+                            checkNotReentrant(key, limit);
+                            callerRuns = true;
+                            break;
+                        default:
+                            throw new RejectedExecutionException(rejection(key));
+                    }
+                }
+                if (!callerRuns) {
+                    ++limit.tasks;
+                }
+            }
+        } catch (RejectedExecutionException | InterruptedException e) {
+            releaseKeyLimit(limit);
+            throw e;
+        }
+        if (dropped != null) {
+            releaseKeyLimit(limit);
+            semaphore.release();
+        }
+        if (callerRuns) {
+            runOnCaller(key, task, limit);
+            return true;
+        }
+        try {
+            if (!acquirePermit(timeoutNanos < 0 ? -1 : Math.max(0, deadline - System.nanoTime()))) {
+                releaseKeyTask(bounded);
+                return false;
+            }
+        } catch (RejectedExecutionException | InterruptedException e) {
+            releaseKeyTask(bounded);
+            throw e;
+        }
+        if (drained) {
+            // drained while acquiring the permit
+            releaseKeyTask(bounded);
+            semaphore.release();
+            checkNotDrained();
+        }
+        if (onKeyTasksExceeded == DROP_OLDEST) {
+            // droppable once it holds the permit
+            synchronized (limit) {
+                limit.pending.add(bounded);
             }
         }
         try {
-            keySequentialExecutor.execute(new KeyRunnable<>(
-                    task,
-                    () -> {
-                        try {
-                            task.run();
-                        } finally {
-                            semaphore.release();
-                        }
-                    })
-            );
+            runner.run(key, bounded.accept());
         } catch (RejectedExecutionException e) {
+            releaseKeyTask(bounded);
             semaphore.release();
             throw e;
         }
+        return true;
+    }
+
+    // a negative timeout applies the overall strategy
+    private boolean acquirePermit(long timeoutNanos) throws InterruptedException {
+        if (timeoutNanos < 0) {
+            acquire.run();
+            return true;
+        } else {
+            return semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // a task waiting for the limit of its own key would wait for itself
+    private void checkNotReentrant(Object key, KeyLimit limit) {
+        if (runningKey.get() == limit) {
+            throw new RejectedExecutionException(rejection(key) + " by a task for the key");
+        }
+    }
+
+    private void runAs(KeyLimit limit, Runnable task) {
+        KeyLimit outer = runningKey.get();
+        runningKey.set(limit);
+        try {
+            task.run();
+        } finally {
+            if (outer == null) {
+                runningKey.remove();
+            } else {
+                runningKey.set(outer);
+            }
+        }
+    }
+
+    private void awaitKeyTask(KeyLimit limit) {
+        boolean interrupted = false;
+        while (limit.tasks >= maxTasksPerKey) {
+            try {
+                limit.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean awaitKeyTask(KeyLimit limit, long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (limit.tasks >= maxTasksPerKey) {
+            if (timeoutNanos <= 0) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(limit, timeoutNanos);
+            } catch (InterruptedException e) {
+                // pass on a notification which might have been consumed
+                limit.notify();
+                throw e;
+            }
+            timeoutNanos = deadline - System.nanoTime();
+        }
+        return true;
+    }
+
+    private BoundedTask dropOldest(Object key, KeyLimit limit) {
+        for (BoundedTask oldest = limit.pending.poll(); oldest != null; oldest = limit.pending.poll()) {
+            if (STATE.compareAndSet(oldest, PENDING, DROPPED)) {
+                --limit.tasks;
+                return oldest;
+            }
+        }
+        throw new RejectedExecutionException(rejection(key));
+    }
+
+    // A hand-off is enqueued behind the tasks for the key and the submitting thread runs the task when its turn comes.
+    // The overall permit is taken once the turn has come, so the waiting caller doesn't hold it.
+    private void runOnCaller(Object key, Runnable task, KeyLimit limit) {
+        CompletableFuture<Void> turn = new CompletableFuture<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            runner.run(key, new AsyncTask<>(() -> {
+                turn.complete(null);
+                return done;
+            }));
+        } catch (RejectedExecutionException e) {
+            releaseKeyLimit(limit);
+            throw e;
+        }
+        try {
+            turn.join();
+            acquire.run();
+            try {
+                checkNotDrained();
+                runAs(limit, task);
+            } finally {
+                semaphore.release();
+            }
+        } finally {
+            done.complete(null);
+            releaseKeyLimit(limit);
+        }
+    }
+
+    private void releaseKeyTask(BoundedTask bounded) {
+        KeyLimit limit = bounded.limit;
+        synchronized (limit) {
+            --limit.tasks;
+            if (onKeyTasksExceeded == DROP_OLDEST) {
+                limit.pending.remove(bounded);
+            }
+            limit.notify();
+        }
+        releaseKeyLimit(limit);
+    }
+
+    private void releaseKeyLimit(KeyLimit limit) {
+        keyLimits.computeIfPresent(limit.key, (key, current) -> --current.users == 0 ? null : current);
+    }
+
+    private static String rejection(Object key) {
+        return "task limit of the key '" + key + "' exceeded";
     }
 
     @Override
-    public synchronized boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
-        if (!drained && semaphore.tryAcquire(maxTasks, timeout, unit)) {
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        if (drained) {
+            return true;
+        }
+        int permits = freezeLimit(true);
+        if (semaphore.tryAcquire(permits, timeout, unit)) {
             drained = true;
+            // the producers blocked on the semaphore acquire the permits and find the executor drained
+            semaphore.release(permits);
+        } else {
+            freezeLimit(false);
         }
         return drained;
     }
+
+    /**
+     * @return the current overall limit of the tasks
+     */
+    public int getLimit() {
+        return maxTasks;
+    }
+
+    private int freezeLimit(boolean frozen) {
+        if (adaptiveLimit == null) {
+            return maxTasks;
+        }
+        synchronized (adaptiveLimit) {
+            limitFrozen = frozen;
+            return maxTasks;
+        }
+    }
+
+    private void adjustLimit() {
+        synchronized (adaptiveLimit) {
+            if (limitFrozen || drained) {
+                adaptiveLimit.skipWindow();
+                return;
+            }
+            int limit = adaptiveLimit.adjust(maxTasks - semaphore.availablePermits());
+            if (limit > maxTasks) {
+                semaphore.release(limit - maxTasks);
+            } else if (limit < maxTasks) {
+                semaphore.reduce(maxTasks - limit);
+            }
+            maxTasks = limit;
+        }
+    }
 }
@@ -23,11 +23,29 @@ SOFTWARE.
 */
 package com.jano7.executor;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
-public final class KeySequentialExecutor implements Executor {
+import static com.jano7.executor.Util.checkNotNull;
+
+public final class KeySequentialExecutor implements DrainableExecutor {
 
     private final KeySequentialRunner<Runnable> runner;
+    // the producers inside a submission; both sums only grow, so comparing them can't miss a producer
+    private final LongAdder entered = new LongAdder();
+    private final LongAdder exited = new LongAdder();
+    private volatile boolean drained = false;
 
     public KeySequentialExecutor(Executor underlyingExecutor) {
         runner = new KeySequentialRunner<>(underlyingExecutor);
@@ -37,8 +55,186 @@ public final class KeySequentialExecutor implements Executor {
         runner = new KeySequentialRunner<>(underlyingExecutor, exceptionHandler);
     }
 
+    public KeySequentialExecutor(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Runnable> exceptionHandler,
+            int maxTasksPerTurn
+    ) {
+        runner = new KeySequentialRunner<>(underlyingExecutor, exceptionHandler, maxTasksPerTurn);
+    }
+
+    public KeySequentialExecutor(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Runnable> exceptionHandler,
+            int maxTasksPerTurn,
+            Instrumentation<? super Runnable> instrumentation
+    ) {
+        runner = new KeySequentialRunner<>(underlyingExecutor, exceptionHandler, maxTasksPerTurn, instrumentation);
+    }
+
+    /**
+     * @param callerRuns whether the tasks for a key are executed on the submitting thread when the underlying executor
+     *                   rejects the key, see {@link KeySequentialRunner}
+     */
+    public KeySequentialExecutor(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Runnable> exceptionHandler,
+            int maxTasksPerTurn,
+            Instrumentation<? super Runnable> instrumentation,
+            boolean callerRuns
+    ) {
+        runner = new KeySequentialRunner<>(
+                underlyingExecutor, exceptionHandler, maxTasksPerTurn, instrumentation, callerRuns);
+    }
+
+    /**
+     * The task is ordered with the other tasks for the key, including the ones executed as a {@link KeyRunnable}.
+     */
+    public <Key, T> CompletableFuture<T> submit(Key key, Callable<T> task) {
+        checkNotNull(task);
+        CallableTask<T> future = new CallableTask<>(task);
+        enter();
+        try {
+            runner.run(new KeyRunnable<>(key, future), future);
+        } finally {
+            exit();
+        }
+        return future;
+    }
+
+    /**
+     * The next task for the key is not started until the stage returned by the task completes.
+     */
+    public <Key, T> CompletableFuture<T> submitAsync(Key key, Supplier<? extends CompletionStage<T>> task) {
+        checkNotNull(task);
+        AsyncTask<T> future = new AsyncTask<>(task);
+        enter();
+        try {
+            runner.run(new KeyRunnable<>(key, future), future);
+        } finally {
+            exit();
+        }
+        return future;
+    }
+
     @Override
     public void execute(Runnable task) {
-        runner.run(task, task);
+        enter();
+        try {
+            runner.run(task, task);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * The task is skipped if it cannot start within the timeout; the skipped task is reported to
+     * {@link TaskExceptionHandler#onExpired(Object, Runnable)}.
+     */
+    public void executeExpiring(Runnable task, long timeout, TimeUnit unit) {
+        enter();
+        try {
+            runner.runExpiring(task, task, timeout, unit);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * The task replaces the queued task for the key with the same tag, if there is one which hasn't started yet.
+     */
+    public void executeConflated(Runnable task, Object tag) {
+        enter();
+        try {
+            runner.runConflated(task, tag, task);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * @param merge combines the queued task for the key with the same tag, if it hasn't started yet, with the new one;
+     *              must be free of side effects
+     */
+    public void executeConflated(Runnable task, Object tag, BinaryOperator<Runnable> merge) {
+        enter();
+        try {
+            runner.runConflated(task, tag, task, merge);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * The task is executed ahead of the queued non-urgent tasks for the key.
+     */
+    public void executeUrgent(Runnable task) {
+        enter();
+        try {
+            runner.runUrgent(task, task);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Rejects the new tasks and waits for the queued and running ones to complete.
+     *
+     * @return true if drained; false if the timeout elapses, the new tasks are rejected nevertheless
+     */
+    @Override
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        drained = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return awaitProducers(deadline) && runner.awaitIdle(deadline);
+    }
+
+    /**
+     * Rejects the new tasks, stops starting the queued ones and waits for the running ones to complete. A key hands
+     * over its queued tasks on its next turn, so the underlying executor must not be shut down before.
+     *
+     * @return the tasks which haven't started grouped by key (the key of a {@link KeyRunnable}, or the task itself);
+     * the tasks of the keys which haven't had their turn before the timeout are missing
+     */
+    public Map<Object, List<Runnable>> shutdownNow(long timeout, TimeUnit unit) throws InterruptedException {
+        runner.cancelQueued();
+        drain(timeout, unit);
+        Map<Object, List<Runnable>> notStarted = new HashMap<>();
+        runner.cancelledTasks().forEach((key, tasks) -> notStarted.computeIfAbsent(
+                key instanceof KeyRunnable ? ((KeyRunnable<?>) key).getKey() : key,
+                k -> new ArrayList<>()
+        ).addAll(tasks));
+        return notStarted;
+    }
+
+    private void enter() {
+        entered.increment();
+        if (drained) {
+            exit();
+            throw new RejectedExecutionException("executor drained");
+        }
+    }
+
+    private void exit() {
+        exited.increment();
+        if (drained) {
+            synchronized (exited) {
+                exited.notifyAll();
+            }
+        }
+    }
+
+    private boolean awaitProducers(long deadlineNanos) throws InterruptedException {
+        synchronized (exited) {
+            // the exits are summed first, they never outnumber the entries
+            while (exited.sum() != entered.sum()) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(exited, remaining);
+            }
+        }
+        return true;
     }
 }
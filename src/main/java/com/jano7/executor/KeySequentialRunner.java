@@ -23,82 +23,367 @@ SOFTWARE.
 */
 package com.jano7.executor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 import static com.jano7.executor.Util.checkNotNull;
 
 public final class KeySequentialRunner<Key> {
 
-    private final class KeyRunner {
+    // never completes, so that it can be forked again for every turn of the key
+    private static final class ForkJoinTurn extends ForkJoinTask<Void> {
 
-        private boolean notTriggered = true;
-        private final TaskQueue tasks = new TaskQueue();
-        private final Key key;
+        private static final long serialVersionUID = 1L;
 
-        KeyRunner(Key key) {
+        private final Runnable runner;
+
+        ForkJoinTurn(Runnable runner) {
+            this.runner = runner;
+        }
+
+        @Override
+        public Void getRawResult() {
+            return null;
+        }
+
+        @Override
+        protected void setRawResult(Void value) {
+        }
+
+        @Override
+        protected boolean exec() {
+            try {
+                runner.run();
+            } catch (Throwable t) {
+                // completing exceptionally would swallow the throwable and stop the turn from being forked again;
+                // the handler of the worker gets it like the thread of a plain executor does
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, t);
+            }
+            return false;
+        }
+    }
+
+    private final class KeyRunner implements Runnable {
+
+        private final TaskQueue<Runnable> tasks;
+        private final Runnable resume = this::resume;
+        private final ForkJoinTask<Void> turn = forkJoinPool == null ? null : new ForkJoinTurn(this);
+        // change only when the runner is reused, holding its monitor
+        private Key key;
+        private Object mapKey;
+        private volatile TaskQueue<UrgentTask> urgentTasks; // created by the first urgent task
+        private UrgentTask nextUrgentTask;
+        private Map<Object, ConflatedTask> conflatedTasks; // guarded by the runner's monitor
+        private long taskStarted; // instrumentation only
+
+        KeyRunner(Key key, Object mapKey) {
+            this.tasks = new TaskQueue<>(mapKey);
+            this.key = key;
+            this.mapKey = mapKey;
+        }
+
+        // the runner is retired and not in the map, only the stale producers may still hold it
+        synchronized void reuse(Key key, Object mapKey, Runnable first) {
             this.key = key;
+            this.mapKey = mapKey;
+            conflatedTasks = null;
+            tasks.prepareReuse(mapKey, first);
         }
 
-        void enqueue(Runnable task) {
-            if (!tasks.enqueue(task)) {
-                throw new RejectedExecutionException(rejection());
+        // invoked once by the thread which has put the runner to the map
+        void start() {
+            try {
+                dispatch();
+            } catch (RejectedExecutionException e) {
+                if (callerRuns) {
+                    run();
+                    return;
+                }
+                // the first task belongs to the starting thread, complete the ones accepted in the meantime
+                runRejected(tasks.rejectNew(), 1);
+                throw new RejectedExecutionException(rejection(), e);
             }
         }
 
-        synchronized void triggerRun() {
-            if (notTriggered) {
-                Runnable task = tasks.dequeue();
-                if (task == null) {
-                    throw new RejectedExecutionException(rejection());
+        @Override
+        public void run() {
+            do {
+                if (!runTurn()) {
+                    return;
+                }
+            } while (!resubmitted());
+        }
+
+        // false if the key has retired or suspended; true if it yields the thread to the tasks of other keys
+        private boolean runTurn() {
+            int remaining = maxTasksPerTurn;
+            do {
+                if (cancelled) {
+                    cancel();
+                    return false;
                 }
-                try {
-                    run(task);
-                    notTriggered = false;
-                } catch (RejectedExecutionException e) {
-                    tasks.rejectNew();
-                    synchronized (keyRunners) {
-                        keyRunners.remove(key);
+                Runnable task = nextTask();
+                if (task != null) {
+                    if (instrumentation != null) {
+                        task = started(task);
                     }
-                    throw new RejectedExecutionException(rejection(), e);
+                    if (task instanceof ConflatedTask) {
+                        unregister((ConflatedTask) task);
+                    }
+                    if (task instanceof AsyncTask) {
+                        if (((AsyncTask<?>) task).start(resume)) {
+                            // the key is suspended until the stage returned by the task completes
+                            return false;
+                        }
+                    } else {
+                        runSafely(task);
+                    }
+                    if (instrumentation != null) {
+                        finished();
+                    }
+                }
+                if (tasks.retireIfEmpty()) {
+                    retireAndRecycle(this);
+                    return false;
                 }
+                // the urgent tasks don't yield the thread
+            } while (--remaining > 0 || hasUrgentTask());
+            return true;
+        }
+
+        // invoked holding the runner's monitor, so that the queueing and the registration of a tag are atomic
+        boolean conflate(Object mapKey, Object tag, Runnable task, BinaryOperator<Runnable> merge) {
+            if (recycler != null && !tasks.isOwnedBy(mapKey)) {
+                // the conflated tasks may belong to another key
+                return false;
+            }
+            if (conflatedTasks == null) {
+                conflatedTasks = new HashMap<>();
+            }
+            ConflatedTask pending = conflatedTasks.get(tag);
+            if (pending != null && pending.merge(task, merge)) {
+                return true;
             }
+            ConflatedTask conflated = new ConflatedTask(task, tag);
+            if (!offer(queued(conflated), mapKey)) {
+                return false;
+            }
+            conflatedTasks.put(tag, conflated);
+            if (instrumentation != null) {
+                instrumentation.onEnqueue(key);
+            }
+            return true;
         }
 
-        private void run(Runnable task) {
-            underlyingExecutor.execute(() -> {
-                runSafely(task);
-                Runnable next = tasks.dequeue();
-                if (next == null) {
-                    synchronized (keyRunners) {
-                        next = tasks.dequeue();
-                        if (next == null) {
-                            keyRunners.remove(key);
-                        }
+        // A task about to start can't be merged with anymore, the newer tasks with its tag are queued after it. The
+        // tags are registered only while their tasks are queued, so a busy key doesn't accumulate them.
+        private synchronized void unregister(ConflatedTask conflated) {
+            if (conflatedTasks != null) {
+                conflatedTasks.remove(conflated.tag, conflated);
+            }
+        }
+
+        TaskQueue<UrgentTask> urgentTasks() {
+            TaskQueue<UrgentTask> urgent = urgentTasks;
+            if (urgent == null) {
+                synchronized (this) {
+                    urgent = urgentTasks;
+                    if (urgent == null) {
+                        urgentTasks = urgent = new TaskQueue<>();
                     }
                 }
-                if (next != null) {
-                    try {
-                        run(next);
-                    } catch (RejectedExecutionException e) {
-                        List<Runnable> accepted = tasks.rejectNew();
-                        // complete the task and the queued ones on this thread when the execution is rejected
-                        runSafely(next);
-                        for (Runnable queued : accepted) {
-                            runSafely(queued);
-                        }
-                        synchronized (keyRunners) {
-                            keyRunners.remove(key);
+            }
+            return urgent;
+        }
+
+        private boolean hasUrgentTask() {
+            TaskQueue<UrgentTask> urgent = urgentTasks;
+            if (nextUrgentTask == null && urgent != null) {
+                UrgentTask task;
+                while ((task = urgent.dequeue()) != null) {
+                    if (!task.done) {
+                        nextUrgentTask = task;
+                        break;
+                    }
+                }
+            }
+            return nextUrgentTask != null;
+        }
+
+        // null if the queue holds only the urgent tasks executed already
+        private Runnable nextTask() {
+            if (hasUrgentTask()) {
+                UrgentTask urgent = nextUrgentTask;
+                nextUrgentTask = null;
+                urgent.done = true;
+                return urgent.task;
+            }
+            Runnable task;
+            while ((task = tasks.dequeue()) instanceof UrgentTask) {
+                UrgentTask urgent = (UrgentTask) task;
+                if (!urgent.done) {
+                    urgent.done = true;
+                    return urgent.task;
+                }
+            }
+            return task;
+        }
+
+        boolean offer(Runnable task, Object mapKey) {
+            return recycler == null ? tasks.enqueue(task) : tasks.enqueue(task, mapKey);
+        }
+
+        private void resume() {
+            if (instrumentation != null) {
+                finished();
+            }
+            if (tasks.retireIfEmpty()) {
+                retireAndRecycle(this);
+            } else if (!resubmitted()) {
+                run();
+            }
+        }
+
+        private void cancel() {
+            List<Runnable> queued = tasks.rejectNew();
+            List<Runnable> notStarted = new ArrayList<>(queued.size());
+            for (Runnable task : queued) {
+                if (task instanceof UrgentTask) {
+                    UrgentTask urgent = (UrgentTask) task;
+                    if (urgent.done) {
+                        continue;
+                    }
+                    task = urgent.task;
+                }
+                if (task instanceof TimedTask) {
+                    task = ((TimedTask) task).task;
+                }
+                if (task instanceof ConflatedTask) {
+                    task = ((ConflatedTask) task).take();
+                }
+                if (task instanceof ExpiringTask) {
+                    task = ((ExpiringTask) task).task;
+                }
+                if (task != null) {
+                    notStarted.add(task);
+                    if (instrumentation != null) {
+                        instrumentation.onCancel(key);
+                    }
+                }
+            }
+            if (!notStarted.isEmpty()) {
+                synchronized (cancelledTasks) {
+                    cancelledTasks.computeIfAbsent(key, k -> new ArrayList<>()).addAll(notStarted);
+                }
+            }
+            retire(this);
+        }
+
+        // false if the execution is rejected and the caller runs the next turn
+        private boolean resubmitted() {
+            try {
+                dispatch();
+            } catch (RejectedExecutionException e) {
+                if (callerRuns) {
+                    return false;
+                }
+                // complete the queued tasks on this thread when the execution is rejected
+                runRejected(tasks.rejectNew(), 0);
+            }
+            return true;
+        }
+
+        private void dispatch() {
+            if (instrumentation != null) {
+                instrumentation.onDispatch(key);
+            }
+            if (forkJoinPool == null) {
+                underlyingExecutor.execute(this);
+            } else if (isForkJoinWorker()) {
+                // the next turn goes to the local deque, likely to the same core
+                turn.fork();
+            } else {
+                forkJoinPool.execute(turn);
+            }
+        }
+
+        private boolean isForkJoinWorker() {
+            Thread current = Thread.currentThread();
+            return current instanceof ForkJoinWorkerThread
+                    && ((ForkJoinWorkerThread) current).getPool() == forkJoinPool;
+        }
+
+        private Runnable started(Runnable task) {
+            TimedTask timed = (TimedTask) task;
+            taskStarted = System.nanoTime();
+            instrumentation.onStart(key, taskStarted - timed.enqueued);
+            return timed.task;
+        }
+
+        private void finished() {
+            instrumentation.onFinish(key, System.nanoTime() - taskStarted);
+        }
+
+        // The key stays in the map rejecting new tasks until the rejected ones complete. Like in a turn, an async task
+        // suspends the rest until its stage completes, then the thread completing the stage carries on.
+        private void runRejected(List<Runnable> rejected, int from) {
+            for (int i = from; i < rejected.size(); ++i) {
+                Runnable task = rejected.get(i);
+                if (task instanceof UrgentTask) {
+                    UrgentTask urgent = (UrgentTask) task;
+                    if (urgent.done) {
+                        continue;
+                    }
+                    urgent.done = true;
+                    task = urgent.task;
+                }
+                if (instrumentation != null) {
+                    task = started(task);
+                }
+                if (task instanceof AsyncTask) {
+                    int next = i + 1;
+                    if (((AsyncTask<?>) task).start(() -> {
+                        if (instrumentation != null) {
+                            finished();
                         }
+                        runRejected(rejected, next);
+                    })) {
+                        return;
                     }
+                } else {
+                    runSafely(task);
+                }
+                if (instrumentation != null) {
+                    finished();
                 }
-            });
+            }
+            retire(this);
         }
 
         private void runSafely(Runnable task) {
             try {
+                if (task instanceof ExpiringTask) {
+                    ExpiringTask expiring = (ExpiringTask) task;
+                    if (expiring.isExpired()) {
+                        exceptionHandler.onExpired(key, expiring.task);
+                        return;
+                    }
+                }
                 task.run();
             } catch (Throwable t) {
                 exceptionHandler.onException(key, t);
@@ -110,32 +395,328 @@ public final class KeySequentialRunner<Key> {
         }
     }
 
+    // ConcurrentHashMap does not permit null keys
+    private static final Object NULL_KEY = new Object();
+
     private final Executor underlyingExecutor;
+    private final ForkJoinPool forkJoinPool; // the underlying executor takes the turns as ForkJoinTasks
     private final TaskExceptionHandler<Key> exceptionHandler;
-    private final HashMap<Key, KeyRunner> keyRunners = new HashMap<>();
+    private final int maxTasksPerTurn;
+    private final Instrumentation<? super Key> instrumentation;
+    private final boolean callerRuns;
+    private final Recycler<KeyRunner> recycler;
+    private final ConcurrentHashMap<Object, KeyRunner> keyRunners = new ConcurrentHashMap<>();
+    private final Map<Key, List<Runnable>> cancelledTasks = new HashMap<>();
+    private volatile boolean cancelled = false;
+    private volatile boolean awaitingIdle = false;
 
     public KeySequentialRunner(Executor underlyingExecutor) {
-        this.underlyingExecutor = underlyingExecutor;
-        this.exceptionHandler = new TaskExceptionHandler<Key>() {
-        };
+        this(underlyingExecutor, new TaskExceptionHandler<Key>() {
+        });
     }
 
     public KeySequentialRunner(Executor underlyingExecutor, TaskExceptionHandler<Key> exceptionHandler) {
+        this(underlyingExecutor, exceptionHandler, 1);
+    }
+
+    /**
+     * @param maxTasksPerTurn the maximum number of tasks for a key executed in a row before the thread is yielded back
+     *                        to the underlying executor; 1 is the fairest setting, higher values trade fairness among
+     *                        the keys for throughput
+     */
+    public KeySequentialRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Key> exceptionHandler,
+            int maxTasksPerTurn
+    ) {
+        this(underlyingExecutor, exceptionHandler, maxTasksPerTurn, null);
+    }
+
+    /**
+     * @param instrumentation notified about the lifecycle of the tasks; null disables the instrumentation
+     */
+    public KeySequentialRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Key> exceptionHandler,
+            int maxTasksPerTurn,
+            Instrumentation<? super Key> instrumentation
+    ) {
+        this(underlyingExecutor, exceptionHandler, maxTasksPerTurn, instrumentation, false);
+    }
+
+    /**
+     * @param callerRuns whether the tasks for a key are executed on the submitting thread (or on the thread which has
+     *                   completed the previous turn of the key) when the underlying executor rejects the key, like
+     *                   with {@link java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy}; otherwise the task
+     *                   which activates the key is rejected
+     */
+    public KeySequentialRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Key> exceptionHandler,
+            int maxTasksPerTurn,
+            Instrumentation<? super Key> instrumentation,
+            boolean callerRuns
+    ) {
+        this(underlyingExecutor, exceptionHandler, maxTasksPerTurn, instrumentation, callerRuns, 0);
+    }
+
+    /**
+     * @param recycledRunners the maximum number of the runners (with their queues) of the idle keys kept for reuse
+     *                        by the keys becoming active, which trades memory for the allocation rate when the keys
+     *                        come and go; 0 disables the recycling
+     */
+    public KeySequentialRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Key> exceptionHandler,
+            int maxTasksPerTurn,
+            Instrumentation<? super Key> instrumentation,
+            boolean callerRuns,
+            int recycledRunners
+    ) {
+        if (maxTasksPerTurn < 1) {
+            throw new IllegalArgumentException("maxTasksPerTurn must be positive");
+        }
         this.underlyingExecutor = underlyingExecutor;
+        this.forkJoinPool = underlyingExecutor instanceof ForkJoinPool ? (ForkJoinPool) underlyingExecutor : null;
         this.exceptionHandler = exceptionHandler;
+        this.maxTasksPerTurn = maxTasksPerTurn;
+        this.instrumentation = instrumentation;
+        this.callerRuns = callerRuns;
+        if (recycledRunners < 0) {
+            throw new IllegalArgumentException("recycledRunners must not be negative");
+        }
+        this.recycler = recycledRunners == 0 ? null : new Recycler<>(recycledRunners);
+    }
+
+    public <T> CompletableFuture<T> submit(Key key, Callable<T> task) {
+        checkNotNull(task);
+        CallableTask<T> future = new CallableTask<>(task);
+        run(key, future);
+        return future;
+    }
+
+    /**
+     * Submits a task which returns a stage of an asynchronous computation. The next task for the key is not started
+     * until the stage completes, while the thread of the underlying executor is released in the meantime.
+     */
+    public <T> CompletableFuture<T> submitAsync(Key key, Supplier<? extends CompletionStage<T>> task) {
+        checkNotNull(task);
+        AsyncTask<T> future = new AsyncTask<>(task);
+        run(key, future);
+        return future;
     }
 
     public void run(Key key, Runnable task) {
         checkNotNull(task);
-        KeyRunner runner;
-        synchronized (keyRunners) {
-            runner = keyRunners.get(key);
+        enqueue(key, queued(task));
+    }
+
+    /**
+     * The task is skipped if it cannot start within the timeout, e.g. because of the queued tasks for the key; the
+     * skipped task is reported to {@link TaskExceptionHandler#onExpired(Object, Runnable)}.
+     */
+    public void runExpiring(Key key, Runnable task, long timeout, TimeUnit unit) {
+        checkNotNull(task);
+        enqueue(key, queued(new ExpiringTask(task, System.nanoTime() + unit.toNanos(timeout))));
+    }
+
+    /**
+     * Runs the task ahead of the queued non-urgent tasks for the key. The urgent tasks are executed in order among
+     * themselves, and they don't count towards the maxTasksPerTurn.
+     */
+    public void runUrgent(Key key, Runnable task) {
+        checkNotNull(task);
+        UrgentTask urgent = new UrgentTask(queued(task));
+        // the task queue decides when the key retires, the urgent lane only lets the task overtake
+        enqueue(key, urgent).urgentTasks().enqueue(urgent);
+    }
+
+    public void runConflated(Key key, Object tag, Runnable task) {
+        runConflated(key, tag, task, (queued, newer) -> newer);
+    }
+
+    /**
+     * Merges the task with the queued task for the key with the same tag, if there is one which hasn't started yet;
+     * otherwise queues the task. The merge function is invoked with the queued and the new task, possibly more than
+     * once, so it must be free of side effects.
+     */
+    public void runConflated(Key key, Object tag, Runnable task, BinaryOperator<Runnable> merge) {
+        checkNotNull(task);
+        if (tag == null) {
+            throw new NullPointerException("tag is null");
+        }
+        Object mapKey = key == null ? NULL_KEY : key;
+        while (true) {
+            KeyRunner runner = keyRunners.get(mapKey);
+            if (runner == null) {
+                ConflatedTask conflated = new ConflatedTask(task, tag);
+                KeyRunner created = newRunner(key, mapKey, queued(conflated));
+                synchronized (created) {
+                    created.conflatedTasks = new HashMap<>();
+                    created.conflatedTasks.put(tag, conflated);
+                }
+                if (keyRunners.putIfAbsent(mapKey, created) == null) {
+                    try {
+                        activate(created);
+                    } catch (RejectedExecutionException e) {
+                        // the other producers may have merged their tasks with the rejected one
+                        Runnable merged = conflated.take();
+                        if (merged != null && merged != task) {
+                            created.runSafely(merged);
+                        }
+                        throw e;
+                    }
+                    return;
+                }
+                discard(created);
+                continue;
+            }
+            boolean accepted;
+            synchronized (runner) {
+                accepted = runner.conflate(mapKey, tag, task, merge);
+            }
+            if (accepted) {
+                return;
+            }
+            awaitRetired(runner, mapKey);
+        }
+    }
+
+    private KeyRunner enqueue(Key key, Runnable queued) {
+        Object mapKey = key == null ? NULL_KEY : key;
+        while (true) {
+            KeyRunner runner = keyRunners.get(mapKey);
             if (runner == null) {
-                runner = new KeyRunner(key);
-                keyRunners.put(key, runner);
+                KeyRunner created = newRunner(key, mapKey, queued);
+                runner = keyRunners.putIfAbsent(mapKey, created);
+                if (runner == null) {
+                    activate(created);
+                    return created;
+                }
+                discard(created);
             }
-            runner.enqueue(task);
+            if (runner.offer(queued, mapKey)) {
+                if (instrumentation != null) {
+                    instrumentation.onEnqueue(key);
+                }
+                return runner;
+            }
+            awaitRetired(runner, mapKey);
+        }
+    }
+
+    // holds the first task; a reused runner accepts no other tasks until activated
+    private KeyRunner newRunner(Key key, Object mapKey, Runnable first) {
+        KeyRunner runner = recycler == null ? null : recycler.acquire();
+        if (runner == null) {
+            runner = new KeyRunner(key, mapKey);
+            runner.tasks.enqueue(first);
+        } else {
+            runner.reuse(key, mapKey, first);
+        }
+        return runner;
+    }
+
+    // the runner has lost the race for the key
+    private void discard(KeyRunner runner) {
+        if (recycler != null && runner.tasks.isRetired()) {
+            runner.tasks.cancelReuse();
+            recycler.release(runner);
+        }
+    }
+
+    // invoked when the runner hasn't accepted a task for the key
+    private void awaitRetired(KeyRunner runner, Object mapKey) {
+        if (recycler == null) {
+            if (!runner.tasks.isRetired()) {
+                throw new RejectedExecutionException(runner.rejection());
+            }
+            // the runner has completed its tasks and is about to be removed
+            retire(runner);
+        } else if (runner.tasks.isRetired() || !runner.tasks.isOwnedBy(mapKey)) {
+            // a recycled runner is removed only by its own thread, it might serve the key again by then; or it
+            // serves another key already
+            Thread.yield();
+        } else {
+            throw new RejectedExecutionException(runner.rejection());
+        }
+    }
+
+    private Runnable queued(Runnable task) {
+        return instrumentation == null ? task : new TimedTask(task);
+    }
+
+    private void activate(KeyRunner created) {
+        if (recycler != null && created.tasks.isRetired()) {
+            created.tasks.reopen();
+        }
+        if (instrumentation != null) {
+            instrumentation.onActivate(created.key);
+            instrumentation.onEnqueue(created.key);
+        }
+        created.start();
+    }
+
+    private void retireAndRecycle(KeyRunner runner) {
+        if (retire(runner) && recycler != null) {
+            recycler.release(runner);
+        }
+    }
+
+    private boolean retire(KeyRunner runner) {
+        if (keyRunners.remove(runner.mapKey, runner)) {
+            if (instrumentation != null) {
+                instrumentation.onRetire(runner.key);
+            }
+            if (awaitingIdle && keyRunners.isEmpty()) {
+                synchronized (keyRunners) {
+                    keyRunners.notifyAll();
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Waits until no key has a queued or running task. Meaningful once no new tasks are submitted.
+     *
+     * @return false if the deadline passes
+     */
+    boolean awaitIdle(long deadlineNanos) throws InterruptedException {
+        awaitingIdle = true;
+        synchronized (keyRunners) {
+            while (!keyRunners.isEmpty()) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(keyRunners, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The queued tasks are not started anymore, each key hands them over when it gets its next turn.
+     */
+    void cancelQueued() {
+        cancelled = true;
+    }
+
+    int conflatedTags(Key key) {
+        KeyRunner runner = keyRunners.get(key == null ? NULL_KEY : key);
+        if (runner == null) {
+            return 0;
+        }
+        synchronized (runner) {
+            return runner.conflatedTasks == null ? 0 : runner.conflatedTasks.size();
+        }
+    }
+
+    Map<Key, List<Runnable>> cancelledTasks() {
+        synchronized (cancelledTasks) {
+            return new HashMap<>(cancelledTasks);
         }
-        runner.triggerRun();
     }
 }
@@ -0,0 +1,158 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static com.jano7.executor.Util.checkNotNull;
+
+/**
+ * Executes the tasks for a key after a delay, or periodically. A task which is due joins the queue of its key in the
+ * runner (or in the executor as a {@link KeyRunnable}), so it is ordered with the other tasks for the key and never
+ * runs concurrently with them; the next run of a periodic task is scheduled once the previous one completes.
+ * <p>
+ * The delays are tracked by a hashed wheel timer with a single thread: scheduling and cancelling take constant time
+ * regardless of the number of pending tasks, and a task fires within a tick after its delay elapses.
+ */
+public final class KeySequentialScheduler<Key> {
+
+    private final HashedWheelTimer timer;
+    private final BiConsumer<Key, Runnable> dispatcher;
+
+    public KeySequentialScheduler(KeySequentialRunner<Key> runner) {
+        this(runner, 10, TimeUnit.MILLISECONDS, 512, daemonThreadFactory());
+    }
+
+    public KeySequentialScheduler(KeySequentialExecutor executor) {
+        this(executor, 10, TimeUnit.MILLISECONDS, 512, daemonThreadFactory());
+    }
+
+    /**
+     * @param tickDuration  the precision of the timer
+     * @param ticksPerWheel the number of buckets the pending tasks are hashed onto, rounded up to a power of two
+     */
+    public KeySequentialScheduler(
+            KeySequentialRunner<Key> runner,
+            long tickDuration,
+            TimeUnit unit,
+            int ticksPerWheel,
+            ThreadFactory threadFactory
+    ) {
+        this(runner::run, tickDuration, unit, ticksPerWheel, threadFactory);
+    }
+
+    public KeySequentialScheduler(
+            KeySequentialExecutor executor,
+            long tickDuration,
+            TimeUnit unit,
+            int ticksPerWheel,
+            ThreadFactory threadFactory
+    ) {
+        this((key, task) -> executor.execute(new KeyRunnable<>(key, task)), tickDuration, unit, ticksPerWheel,
+                threadFactory);
+    }
+
+    private KeySequentialScheduler(
+            BiConsumer<Key, Runnable> dispatcher,
+            long tickDuration,
+            TimeUnit unit,
+            int ticksPerWheel,
+            ThreadFactory threadFactory
+    ) {
+        this.dispatcher = dispatcher;
+        this.timer = new HashedWheelTimer(unit.toNanos(tickDuration), ticksPerWheel, threadFactory);
+    }
+
+    public ScheduledFuture<?> schedule(Key key, Runnable task, long delay, TimeUnit unit) {
+        return schedule(key, task, delay, 0, unit);
+    }
+
+    /**
+     * The runs start at initialDelay, initialDelay + period and so on; a run which takes longer than the period
+     * delays the subsequent ones. If a run throws, the subsequent ones are suppressed.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(
+            Key key,
+            Runnable task,
+            long initialDelay,
+            long period,
+            TimeUnit unit
+    ) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        return schedule(key, task, initialDelay, unit.toNanos(period), unit);
+    }
+
+    /**
+     * The delay is measured from the completion of a run to the start of the next one. If a run throws, the
+     * subsequent ones are suppressed.
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(
+            Key key,
+            Runnable task,
+            long initialDelay,
+            long delay,
+            TimeUnit unit
+    ) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("delay must be positive");
+        }
+        return schedule(key, task, initialDelay, -unit.toNanos(delay), unit);
+    }
+
+    /**
+     * Stops the timer thread and cancels the pending tasks; the ones which have joined the queues of their keys
+     * already are still executed (a periodic task is cancelled instead of being scheduled again).
+     */
+    public void shutdown() throws InterruptedException {
+        timer.stop();
+    }
+
+    private ScheduledFuture<?> schedule(Key key, Runnable task, long delay, long period, TimeUnit unit) {
+        checkNotNull(task);
+        // keeps the deadline far from an overflow
+        long delayNanos = Math.min(Math.max(unit.toNanos(delay), 0), Long.MAX_VALUE >> 2);
+        ScheduledKeyTask<Key> scheduled =
+                new ScheduledKeyTask<>(key, task, System.nanoTime() + delayNanos, period, timer, dispatcher);
+        if (!timer.schedule(scheduled)) {
+            throw new RejectedExecutionException("scheduler shut down");
+        }
+        return scheduled;
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger count = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, "key-sequential-timer-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,193 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.jano7.executor.Util.checkNotNull;
+
+/**
+ * A {@link KeySequentialRunner} for primitive long keys. The active keys are held in open-addressing maps, striped to
+ * reduce the contention, so a submission neither boxes its key nor allocates a map entry. The exception handler gets
+ * a boxed key, which happens only when a task throws.
+ */
+public final class LongKeySequentialRunner {
+
+    private final class KeyRunner implements Runnable {
+
+        private final TaskQueue<Runnable> tasks = new TaskQueue<>();
+        private final long key;
+
+        KeyRunner(long key) {
+            this.key = key;
+        }
+
+        // invoked once by the thread which has put the runner to the map
+        void start() {
+            try {
+                underlyingExecutor.execute(this);
+            } catch (RejectedExecutionException e) {
+                List<Runnable> accepted = tasks.rejectNew();
+                // the first task belongs to the starting thread, complete the ones accepted in the meantime
+                for (int i = 1; i < accepted.size(); ++i) {
+                    runSafely(accepted.get(i));
+                }
+                retire(this);
+                throw new RejectedExecutionException(rejection(key), e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int remaining = maxTasksPerTurn;
+            do {
+                Runnable task = tasks.dequeue();
+                if (task != null) {
+                    runSafely(task);
+                }
+                if (tasks.retireIfEmpty()) {
+                    retire(this);
+                    return;
+                }
+            } while (--remaining > 0);
+            try {
+                // yield the thread to the tasks of other keys
+                underlyingExecutor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // complete the queued tasks on this thread when the execution is rejected
+                for (Runnable queued : tasks.rejectNew()) {
+                    runSafely(queued);
+                }
+                retire(this);
+            }
+        }
+
+        private void runSafely(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                exceptionHandler.onException(key, t);
+            }
+        }
+    }
+
+    private final Executor underlyingExecutor;
+    private final TaskExceptionHandler<Long> exceptionHandler;
+    private final int maxTasksPerTurn;
+    private final LongKeyMap<KeyRunner>[] keyRunners; // each guarded by its own monitor
+    private final int stripeMask;
+
+    public LongKeySequentialRunner(Executor underlyingExecutor) {
+        this(underlyingExecutor, new TaskExceptionHandler<Long>() {
+        });
+    }
+
+    public LongKeySequentialRunner(Executor underlyingExecutor, TaskExceptionHandler<Long> exceptionHandler) {
+        this(underlyingExecutor, exceptionHandler, 1);
+    }
+
+    /**
+     * @param maxTasksPerTurn the maximum number of tasks for a key executed in a row before the thread is yielded back
+     *                        to the underlying executor
+     */
+    @SuppressWarnings("unchecked")
+    public LongKeySequentialRunner(
+            Executor underlyingExecutor,
+            TaskExceptionHandler<Long> exceptionHandler,
+            int maxTasksPerTurn
+    ) {
+        if (maxTasksPerTurn < 1) {
+            throw new IllegalArgumentException("maxTasksPerTurn must be positive");
+        }
+        this.underlyingExecutor = underlyingExecutor;
+        this.exceptionHandler = exceptionHandler;
+        this.maxTasksPerTurn = maxTasksPerTurn;
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+        @SuppressWarnings("unchecked")
+        LongKeyMap<KeyRunner>[] maps = (LongKeyMap<KeyRunner>[]) new LongKeyMap<?>[stripes];
+        this.keyRunners = maps;
+        for (int i = 0; i < stripes; ++i) {
+            keyRunners[i] = new LongKeyMap<>();
+        }
+        this.stripeMask = stripes - 1;
+    }
+
+    public <T> CompletableFuture<T> submit(long key, Callable<T> task) {
+        checkNotNull(task);
+        CallableTask<T> future = new CallableTask<>(task);
+        run(key, future);
+        return future;
+    }
+
+    public void run(long key, Runnable task) {
+        checkNotNull(task);
+        LongKeyMap<KeyRunner> stripe = stripe(key);
+        while (true) {
+            KeyRunner runner;
+            KeyRunner created = null;
+            synchronized (stripe) {
+                runner = stripe.get(key);
+                if (runner == null) {
+                    runner = created = new KeyRunner(key);
+                    created.tasks.enqueue(task);
+                    stripe.put(key, created);
+                }
+            }
+            if (created != null) {
+                created.start();
+                return;
+            }
+            if (runner.tasks.enqueue(task)) {
+                return;
+            }
+            if (!runner.tasks.isRetired()) {
+                throw new RejectedExecutionException(rejection(key));
+            }
+            // the runner has completed its tasks and is about to be removed
+            retire(runner);
+        }
+    }
+
+    private LongKeyMap<KeyRunner> stripe(long key) {
+        // the maps index by the low bits of the hash
+        return keyRunners[(int) (LongKeyMap.hash(key) >>> 32) & stripeMask];
+    }
+
+    private void retire(KeyRunner runner) {
+        LongKeyMap<KeyRunner> stripe = stripe(runner.key);
+        synchronized (stripe) {
+            if (stripe.get(runner.key) == runner) {
+                stripe.remove(runner.key);
+            }
+        }
+    }
+
+    private static String rejection(long key) {
+        return "task for the key '" + key + "' rejected";
+    }
+}
@@ -0,0 +1,94 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+public final class MetricsSnapshot {
+
+    private final long activeKeys;
+    private final long queuedTasks;
+    private final long enqueuedTasks;
+    private final long dispatches;
+    private final long completedTasks;
+    private final LatencyHistogram.Snapshot queueWaitNanos;
+    private final LatencyHistogram.Snapshot runNanos;
+
+    MetricsSnapshot(
+            long activeKeys,
+            long queuedTasks,
+            long enqueuedTasks,
+            long dispatches,
+            long completedTasks,
+            LatencyHistogram.Snapshot queueWaitNanos,
+            LatencyHistogram.Snapshot runNanos
+    ) {
+        this.activeKeys = activeKeys;
+        this.queuedTasks = queuedTasks;
+        this.enqueuedTasks = enqueuedTasks;
+        this.dispatches = dispatches;
+        this.completedTasks = completedTasks;
+        this.queueWaitNanos = queueWaitNanos;
+        this.runNanos = runNanos;
+    }
+
+    public long getActiveKeys() {
+        return activeKeys;
+    }
+
+    public long getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public long getEnqueuedTasks() {
+        return enqueuedTasks;
+    }
+
+    public long getDispatches() {
+        return dispatches;
+    }
+
+    public long getCompletedTasks() {
+        return completedTasks;
+    }
+
+    public LatencyHistogram.Snapshot getQueueWaitNanos() {
+        return queueWaitNanos;
+    }
+
+    public LatencyHistogram.Snapshot getRunNanos() {
+        return runNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "activeKeys=" + activeKeys +
+                ", queuedTasks=" + queuedTasks +
+                ", enqueuedTasks=" + enqueuedTasks +
+                ", dispatches=" + dispatches +
+                ", completedTasks=" + completedTasks +
+                ", queueWaitNanos(p50/p99/max)=" + queueWaitNanos.getValueAtPercentile(50) +
+                "/" + queueWaitNanos.getValueAtPercentile(99) + "/" + queueWaitNanos.getMax() +
+                ", runNanos(p50/p99/max)=" + runNanos.getValueAtPercentile(50) +
+                "/" + runNanos.getValueAtPercentile(99) + "/" + runNanos.getMax();
+    }
+}
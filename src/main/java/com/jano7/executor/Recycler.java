@@ -0,0 +1,101 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+// bounded pool split into stripes; a thread starts at its own stripe and moves on to the others when it's empty (or
+// full), skipping the ones which appear so without locking them
+final class Recycler<T> {
+
+    private static final class Stripe {
+
+        final Object[] pooled;
+        volatile int size = 0; // written holding the monitor
+
+        Stripe(int capacity) {
+            pooled = new Object[capacity];
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    Recycler(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = Integer.highestOneBit(Math.min(processors, capacity));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; ++i) {
+            // the remainder goes to the first stripes
+            stripes[i] = new Stripe(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+        mask = count - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    T acquire() {
+        int start = start();
+        for (int i = 0; i < stripes.length; ++i) {
+            Stripe stripe = stripes[(start + i) & mask];
+            if (stripe.size > 0) {
+                synchronized (stripe) {
+                    int size = stripe.size;
+                    if (size > 0) {
+                        T pooled = (T) stripe.pooled[--size];
+                        stripe.pooled[size] = null;
+                        stripe.size = size;
+                        return pooled;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return false if the pool is full
+     */
+    boolean release(T pooled) {
+        int start = start();
+        for (int i = 0; i < stripes.length; ++i) {
+            Stripe stripe = stripes[(start + i) & mask];
+            if (stripe.size < stripe.pooled.length) {
+                synchronized (stripe) {
+                    int size = stripe.size;
+                    if (size < stripe.pooled.length) {
+                        stripe.pooled[size] = pooled;
+                        stripe.size = size + 1;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int start() {
+        return (int) LongKeyMap.hash(Thread.currentThread().getId()) & mask;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+// handed to the key's queue when due; a periodic task is scheduled again once it completes, so its runs never overlap
+final class ScheduledKeyTask<Key> extends CompletableFuture<Void> implements ScheduledFuture<Void>, Runnable {
+
+    private final Key key;
+    private final Runnable task;
+    private final long period; // 0 runs once, positive at a fixed rate, negative with a fixed delay
+    private final HashedWheelTimer timer;
+    private final BiConsumer<Key, Runnable> dispatcher;
+    volatile long deadline;
+    // the timer thread only
+    long remainingRounds;
+    ScheduledKeyTask<?> prev;
+    ScheduledKeyTask<?> next;
+    HashedWheelTimer.Bucket bucket;
+
+    ScheduledKeyTask(
+            Key key,
+            Runnable task,
+            long deadline,
+            long period,
+            HashedWheelTimer timer,
+            BiConsumer<Key, Runnable> dispatcher
+    ) {
+        this.key = key;
+        this.task = task;
+        this.deadline = deadline;
+        this.period = period;
+        this.timer = timer;
+        this.dispatcher = dispatcher;
+    }
+
+    // invoked by the timer thread
+    void expire() {
+        if (!isDone()) {
+            try {
+                dispatcher.accept(key, this);
+            } catch (RejectedExecutionException e) {
+                completeExceptionally(e);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        if (isDone()) {
+            return;
+        }
+        try {
+            task.run();
+        } catch (Throwable t) {
+            // the subsequent runs of a periodic task are suppressed
+            completeExceptionally(t);
+            throw t;
+        }
+        if (period == 0) {
+            complete(null);
+        } else if (!isDone()) {
+            deadline = period > 0 ? deadline + period : System.nanoTime() - period;
+            if (!timer.schedule(this)) {
+                cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            timer.cancel(this);
+        }
+        return cancelled;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other == this) {
+            return 0;
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,269 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.jano7.executor.Util.checkNotNull;
+
+/**
+ * Executes the tasks with the same key (the task itself, as for {@link KeySequentialExecutor}) sequentially on a fixed
+ * number of dedicated worker threads. The keys are hashed onto a fixed array of buckets, each with its own
+ * multi-producer single-consumer queue, and every bucket belongs to a shard served by one worker. Unlike the runner
+ * there are no per-key map entries or objects, which suits a large number of short tasks; the price is that the
+ * keys sharing a bucket are executed sequentially with respect to each other too.
+ * <p>
+ * With work stealing enabled, an idle worker takes whole buckets waiting in the queues of the busy shards, so a
+ * skewed shard doesn't leave the others idle. A bucket is executed by one worker at a time, therefore the order of
+ * the tasks for a key is preserved.
+ */
+public final class ShardedKeySequentialExecutor implements DrainableExecutor {
+
+    private static final int BUCKETS_PER_SHARD = 64;
+    private static final int TASKS_PER_TURN = 64;
+
+    private static final AtomicIntegerFieldUpdater<Bucket> SCHEDULED =
+            AtomicIntegerFieldUpdater.newUpdater(Bucket.class, "scheduled");
+
+    private static final class Bucket {
+
+        final TaskQueue<Runnable> tasks = new TaskQueue<>();
+        final Shard home;
+        volatile int scheduled = 0;
+
+        Bucket(Shard home) {
+            this.home = home;
+        }
+    }
+
+    private final class Shard implements Runnable {
+
+        final ConcurrentLinkedQueue<Bucket> buckets = new ConcurrentLinkedQueue<>();
+        final int index;
+        Thread thread;
+        volatile boolean idle = false;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        void schedule(Bucket bucket) {
+            buckets.offer(bucket);
+            if (idle) {
+                LockSupport.unpark(thread);
+            } else if (workStealing && idleWorkers.get() > 0) {
+                wakeUpIdleWorker();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Bucket bucket = nextBucket();
+                if (bucket == null) {
+                    idle = true;
+                    idleWorkers.incrementAndGet();
+                    // re-check after publishing the idle flag, the producers read it after queueing a bucket
+                    bucket = nextBucket();
+                    if (bucket == null && running) {
+                        LockSupport.park(this);
+                    }
+                    idleWorkers.decrementAndGet();
+                    idle = false;
+                }
+                if (bucket != null) {
+                    runTurn(bucket);
+                }
+            }
+        }
+
+        private Bucket nextBucket() {
+            Bucket bucket = buckets.poll();
+            if (workStealing) {
+                if (bucket == null) {
+                    for (int i = 1; i < shards.length && bucket == null; ++i) {
+                        bucket = shards[(index + i) % shards.length].buckets.poll();
+                    }
+                } else if (idleWorkers.get() > 0 && !buckets.isEmpty()) {
+                    // a producer woke up this worker only, share the remaining buckets
+                    wakeUpIdleWorker();
+                }
+            }
+            return bucket;
+        }
+
+        private void runTurn(Bucket bucket) {
+            int remaining = TASKS_PER_TURN;
+            Runnable task;
+            while (remaining-- > 0 && (task = bucket.tasks.dequeue()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    exceptionHandler.onException(task, t);
+                }
+            }
+            if (!bucket.tasks.isEmpty()) {
+                // yield to the other buckets; a stolen bucket stays with the worker which has stolen it
+                schedule(bucket);
+                return;
+            }
+            bucket.scheduled = 0;
+            if (!bucket.tasks.isEmpty() && SCHEDULED.compareAndSet(bucket, 0, 1)) {
+                schedule(bucket);
+            } else if (activeBuckets.decrementAndGet() == 0 && draining) {
+                synchronized (activeBuckets) {
+                    activeBuckets.notifyAll();
+                }
+            }
+        }
+    }
+
+    private final Shard[] shards;
+    private final Bucket[] buckets;
+    private final TaskExceptionHandler<Runnable> exceptionHandler;
+    private final boolean workStealing;
+    private final AtomicInteger activeBuckets = new AtomicInteger(0);
+    private final AtomicInteger idleWorkers = new AtomicInteger(0);
+    private volatile boolean draining = false;
+    private volatile boolean running = true;
+
+    public ShardedKeySequentialExecutor(int shards) {
+        this(shards, false);
+    }
+
+    public ShardedKeySequentialExecutor(int shards, boolean workStealing) {
+        this(shards, workStealing, new TaskExceptionHandler<Runnable>() {
+        }, daemonThreadFactory());
+    }
+
+    /**
+     * @param shards       the number of worker threads
+     * @param workStealing whether the idle workers take over the waiting keys of the busy ones
+     */
+    public ShardedKeySequentialExecutor(
+            int shards,
+            boolean workStealing,
+            TaskExceptionHandler<Runnable> exceptionHandler,
+            ThreadFactory threadFactory
+    ) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be positive");
+        }
+        this.shards = new Shard[shards];
+        this.buckets = new Bucket[shards * BUCKETS_PER_SHARD];
+        this.exceptionHandler = exceptionHandler;
+        this.workStealing = workStealing;
+        for (int i = 0; i < shards; ++i) {
+            this.shards[i] = new Shard(i);
+        }
+        for (int i = 0; i < buckets.length; ++i) {
+            buckets[i] = new Bucket(this.shards[i % shards]);
+        }
+        for (Shard shard : this.shards) {
+            shard.thread = threadFactory.newThread(shard);
+        }
+        for (Shard shard : this.shards) {
+            shard.thread.start();
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger count = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, "key-sequential-shard-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void wakeUpIdleWorker() {
+        for (Shard shard : shards) {
+            if (shard.idle) {
+                LockSupport.unpark(shard.thread);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        checkNotNull(task);
+        int h = task.hashCode();
+        Bucket bucket = buckets[Math.floorMod(h ^ (h >>> 16), buckets.length)];
+        if (!bucket.tasks.enqueue(task)) {
+            throw new RejectedExecutionException("executor drained");
+        }
+        if (bucket.scheduled == 0 && SCHEDULED.compareAndSet(bucket, 0, 1)) {
+            activeBuckets.incrementAndGet();
+            bucket.home.schedule(bucket);
+        }
+    }
+
+    /**
+     * Rejects the new tasks, waits for the queued ones to complete and stops the worker threads.
+     *
+     * @return true if drained; false if the timeout elapses, the new tasks are rejected nevertheless
+     */
+    @Override
+    public boolean drain(long timeout, TimeUnit unit) throws InterruptedException {
+        draining = true;
+        for (Bucket bucket : buckets) {
+            bucket.tasks.stopAccepting();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (activeBuckets) {
+            while (!isIdle()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(activeBuckets, remaining);
+            }
+        }
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        return true;
+    }
+
+    private boolean isIdle() {
+        if (activeBuckets.get() != 0) {
+            return false;
+        }
+        // a producer may have queued a task but not counted its bucket as active yet
+        for (Bucket bucket : buckets) {
+            if (bucket.scheduled != 0 || !bucket.tasks.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Space-Saving summary of the heaviest keys of a weighted stream in a bounded memory. A key which is not monitored
+ * replaces the lightest monitored one and inherits its weight as the estimation error. The counters are kept in a
+ * binary min-heap by weight, so an update takes O(log capacity). Not thread-safe.
+ */
+class SpaceSaving<Key> {
+
+    static final class Counter<Key> {
+
+        Key key;
+        long weight;
+        long error;
+        long backlog;
+        int index; // in the heap
+
+        Counter(Key key) {
+            this.key = key;
+        }
+    }
+
+    private final Counter<Key>[] heap;
+    private int size = 0;
+    private final HashMap<Key, Counter<Key>> counters;
+
+    @SuppressWarnings("unchecked")
+    SpaceSaving(int capacity) {
+        this.heap = (Counter<Key>[]) new Counter<?>[capacity];
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * @param weight non-negative
+     */
+    Counter<Key> add(Key key, long weight) {
+        Counter<Key> counter = counters.get(key);
+        if (counter == null) {
+            if (size < heap.length) {
+                counter = new Counter<>(key);
+                counter.index = size;
+                heap[size++] = counter;
+                counters.put(key, counter);
+                counter.weight = weight;
+                siftUp(counter);
+                return counter;
+            }
+            counter = heap[0];
+            counters.remove(counter.key);
+            counter.key = key;
+            counter.error = counter.weight;
+            counter.backlog = 0;
+            counters.put(key, counter);
+        }
+        counter.weight += weight;
+        siftDown(counter);
+        return counter;
+    }
+
+    Counter<Key> get(Key key) {
+        return counters.get(key);
+    }
+
+    List<Counter<Key>> counters() {
+        return new ArrayList<>(counters.values());
+    }
+
+    private void siftUp(Counter<Key> counter) {
+        int index = counter.index;
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            Counter<Key> parent = heap[parentIndex];
+            if (parent.weight <= counter.weight) {
+                break;
+            }
+            place(parent, index);
+            index = parentIndex;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(Counter<Key> counter) {
+        int index = counter.index;
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            Counter<Key> child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && heap[rightIndex].weight < child.weight) {
+                childIndex = rightIndex;
+                child = heap[rightIndex];
+            }
+            if (counter.weight <= child.weight) {
+                break;
+            }
+            place(child, index);
+            index = childIndex;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter<Key> counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+}
@@ -30,4 +30,10 @@ public interface TaskExceptionHandler<Key> {
     default void onException(Key key, Throwable cause) {
         new ExecutionException("exception thrown by a task for the key '" + key + "'", cause).printStackTrace();
     }
+
+    /**
+     * Invoked instead of the task submitted with a timeout which has elapsed before the task could start.
+     */
+    default void onExpired(Key key, Runnable task) {
+    }
 }
@@ -24,29 +24,202 @@ SOFTWARE.
 package com.jano7.executor;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
-class TaskQueue {
+/**
+ * Multi-producer single-consumer queue of tasks (or other elements) stored in a linked list of array chunks. The
+ * chunks double in size up to {@value #MAX_CHUNK_SIZE} slots, so a queue of a few tasks stays small while a long queue
+ * allocates a chunk per {@value #MAX_CHUNK_SIZE} tasks rather than a node per task.
+ * <p>
+ * {@link #enqueue(Object)} is lock-free and can be called from any thread. The other methods are reserved for the
+ * consumer; there may be more consumer threads over the queue's lifetime, but they must not overlap and each hand-off
+ * must establish a happens-before relationship (e.g. via an {@link java.util.concurrent.Executor}).
+ */
+class TaskQueue<E> {
 
-    private boolean accept = true;
-    private final LinkedList<Runnable> tasks = new LinkedList<>();
+    static final int MIN_CHUNK_SIZE = 2;
+    static final int MAX_CHUNK_SIZE = 1024;
 
-    synchronized boolean enqueue(Runnable task) {
-        if (accept) {
-            return tasks.offer(task);
+    private static final class Chunk<E> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Chunk, Chunk> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Chunk.class, Chunk.class, "next");
+
+        final long base;
+        final AtomicReferenceArray<E> slots;
+        volatile Chunk<E> next;
+
+        Chunk(long base, int size) {
+            this.base = base;
+            this.slots = new AtomicReferenceArray<>(size);
         }
-        return false;
+
+        long end() {
+            return base + slots.length();
+        }
+
+        @SuppressWarnings("unchecked")
+        Chunk<E> nextOrAppend() {
+            Chunk<E> n = next;
+            if (n == null) {
+                n = new Chunk<>(end(), Math.min(slots.length() << 1, MAX_CHUNK_SIZE));
+                if (!NEXT.compareAndSet(this, null, n)) {
+                    n = next;
+                }
+            }
+            return n;
+        }
+    }
+
+    // the two highest bits of the producer index flag a queue which does not accept new tasks
+    private static final long REJECTING = Long.MIN_VALUE;
+    private static final long RETIRED = REJECTING | (1L << 62);
+    private static final long INDEX_MASK = ~RETIRED;
+
+    private final AtomicLong producerIndex = new AtomicLong(0);
+    private volatile Chunk<E> producerChunk;
+    private volatile Chunk<E> consumerChunk;
+    private long consumerIndex = 0;
+    private volatile Object owner; // changed only while the queue is retired
+
+    TaskQueue() {
+        this(null);
     }
 
-    synchronized Runnable dequeue() {
-        return tasks.poll();
+    TaskQueue(Object owner) {
+        Chunk<E> chunk = new Chunk<>(0, MIN_CHUNK_SIZE);
+        producerChunk = chunk;
+        consumerChunk = chunk;
+        this.owner = owner;
+    }
+
+    boolean enqueue(E task) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index < 0) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        store(index, task);
+        return true;
+    }
+
+    /**
+     * Enqueues the task only if the queue belongs to the owner. The owner of a reused queue changes while the queue is
+     * retired, and the indices keep growing, so the claimed index proves the owner hasn't changed in the meantime.
+     */
+    boolean enqueue(E task, Object owner) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index < 0 || !owner.equals(this.owner)) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        store(index, task);
+        return true;
+    }
+
+    boolean isOwnedBy(Object owner) {
+        return owner.equals(this.owner);
+    }
+
+    private void store(long index, E task) {
+        Chunk<E> chunk = producerChunk;
+        if (chunk.base > index) {
+            // the hint has been moved ahead by other producers; the slot has not been consumed yet, so it must be
+            // reachable from the consumer's chunk
+            chunk = consumerChunk;
+        }
+        while (index >= chunk.end()) {
+            chunk = chunk.nextOrAppend();
+        }
+        if (producerChunk.base < chunk.base) {
+            producerChunk = chunk;
+        }
+        chunk.slots.lazySet((int) (index - chunk.base), task);
     }
 
-    synchronized List<Runnable> rejectNew() {
-        List<Runnable> queued = new ArrayList<>(tasks);
-        tasks.clear();
-        accept = false;
+    E dequeue() {
+        long index = consumerIndex;
+        if (index == (producerIndex.get() & INDEX_MASK)) {
+            return null;
+        }
+        Chunk<E> chunk = consumerChunk;
+        if (index == chunk.end()) {
+            chunk = chunk.nextOrAppend();
+            consumerChunk = chunk;
+        }
+        int slot = (int) (index - chunk.base);
+        E task;
+        while ((task = chunk.slots.get(slot)) == null) {
+            // the slot has been claimed by a producer which has not stored the task yet
+            Thread.yield();
+        }
+        chunk.slots.lazySet(slot, null);
+        consumerIndex = index + 1;
+        return task;
+    }
+
+    boolean isEmpty() {
+        return consumerIndex == (producerIndex.get() & INDEX_MASK);
+    }
+
+    /**
+     * Atomically stops accepting new tasks if the queue is empty.
+     *
+     * @return true if the queue has been retired; false if it is not empty
+     */
+    boolean retireIfEmpty() {
+        return producerIndex.compareAndSet(consumerIndex, consumerIndex | RETIRED);
+    }
+
+    boolean isRetired() {
+        return (producerIndex.get() & RETIRED) == RETIRED;
+    }
+
+    /**
+     * Hands a retired queue over to a new owner with its first task; the queue keeps rejecting new tasks until
+     * {@link #reopen()}.
+     */
+    void prepareReuse(Object owner, E first) {
+        this.owner = owner;
+        long index = consumerIndex;
+        Chunk<E> chunk = consumerChunk;
+        if (index == chunk.end()) {
+            chunk = chunk.nextOrAppend();
+            consumerChunk = chunk;
+        }
+        chunk.slots.lazySet((int) (index - chunk.base), first);
+    }
+
+    void cancelReuse() {
+        Chunk<E> chunk = consumerChunk;
+        chunk.slots.lazySet((int) (consumerIndex - chunk.base), null);
+    }
+
+    void reopen() {
+        producerIndex.set(consumerIndex + 1);
+    }
+
+    /**
+     * Stops accepting new tasks, the queued tasks stay in the queue.
+     */
+    void stopAccepting() {
+        producerIndex.getAndUpdate(index -> index | REJECTING);
+    }
+
+    List<E> rejectNew() {
+        stopAccepting();
+        List<E> queued = new ArrayList<>();
+        for (E task = dequeue(); task != null; task = dequeue()) {
+            queued.add(task);
+        }
         return queued;
     }
 }
@@ -25,7 +25,7 @@ package com.jano7.executor;
 
 class Util {
 
-    static void checkNotNull(Runnable task) {
+    static void checkNotNull(Object task) {
         if (task == null) {
             throw new NullPointerException("task is null");
         }
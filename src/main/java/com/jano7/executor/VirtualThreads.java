@@ -0,0 +1,100 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Key sequential executors backed by virtual threads (JDK 21 or later). The virtual thread API is looked up at runtime
+ * so that the library keeps its Java 8 baseline.
+ * <p>
+ * Every active key gets its own virtual thread which executes the queued tasks of the key until the queue empties and
+ * then terminates; a new virtual thread is started when a task arrives for an idle key. The underlying executor never
+ * rejects, and the runner does not block inside a monitor, so a task blocking on I/O does not pin the carrier thread.
+ * The caller owns the virtual thread executor passed to the factory methods and shuts it down once the runner or the
+ * executor is drained.
+ */
+public final class VirtualThreads {
+
+    private static final MethodHandle newVirtualThreadPerTaskExecutor = lookupVirtualThreadPerTaskExecutor();
+
+    private VirtualThreads() {
+    }
+
+    private static MethodHandle lookupVirtualThreadPerTaskExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(
+                    Executors.class,
+                    "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class)
+            );
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public static boolean isSupported() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (newVirtualThreadPerTaskExecutor == null) {
+            throw new UnsupportedOperationException("virtual threads require JDK 21 or later");
+        }
+        try {
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /**
+     * @param virtualThreads an executor starting a virtual thread per task, e.g. the one returned by
+     *                       {@link #newVirtualThreadPerTaskExecutor()}
+     */
+    public static <Key> KeySequentialRunner<Key> newKeySequentialRunner(
+            Executor virtualThreads,
+            TaskExceptionHandler<Key> exceptionHandler
+    ) {
+        return new KeySequentialRunner<>(virtualThreads, exceptionHandler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param virtualThreads an executor starting a virtual thread per task, e.g. the one returned by
+     *                       {@link #newVirtualThreadPerTaskExecutor()}
+     */
+    public static KeySequentialExecutor newKeySequentialExecutor(
+            Executor virtualThreads,
+            TaskExceptionHandler<Runnable> exceptionHandler
+    ) {
+        return new KeySequentialExecutor(virtualThreads, exceptionHandler, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimitTest {
+
+    private static boolean recordWindow(AdaptiveLimit limit, long latencyNanos) {
+        boolean completed = false;
+        // a window holds as many samples as the limit, at least 10
+        for (int i = Math.max(10, limit.getLimit()); i > 0; --i) {
+            completed = limit.record(latencyNanos);
+        }
+        return completed;
+    }
+
+    @Test
+    public void additiveIncreaseMultiplicativeDecrease() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 5, 12, 99, 1, TimeUnit.MILLISECONDS);
+
+        assertTrue(recordWindow(limit, 100_000));
+        assertEquals(11, limit.adjust(10));
+        assertTrue(recordWindow(limit, 100_000));
+        // the limit is not used
+        assertEquals(11, limit.adjust(2));
+
+        recordWindow(limit, 100_000);
+        limit.adjust(11);
+        recordWindow(limit, 100_000);
+        assertEquals(12, limit.adjust(12));
+
+        assertTrue(recordWindow(limit, 100_000_000));
+        assertEquals(10, limit.adjust(12));
+        recordWindow(limit, 100_000_000);
+        assertEquals(9, limit.adjust(10));
+        for (int i = 0; i < 10; ++i) {
+            recordWindow(limit, 100_000_000);
+            limit.adjust(10);
+        }
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    public void skipWindow() {
+        AdaptiveLimit limit = new AdaptiveLimit(10, 1, 100, 99, 1, TimeUnit.MILLISECONDS);
+
+        assertTrue(recordWindow(limit, 100_000));
+        limit.skipWindow();
+        assertTrue(recordWindow(limit, 100_000));
+        assertFalse(limit.record(100_000));
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectInvalidLimits() {
+        new AdaptiveLimit(10, 20, 100, 99, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeout = 10000)
+    public void waitingForKeyLimitIsNotLatency() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        AdaptiveLimit limit = new AdaptiveLimit(16, 2, 32, 99, 50, TimeUnit.MILLISECONDS);
+        KeySequentialBoundedExecutor executor = new KeySequentialBoundedExecutor(
+                limit, BoundedStrategy.BLOCK, 1, BoundedStrategy.BLOCK, underlyingExecutor, null);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 30; ++p) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 10; ++i) {
+                    // the producers wait for the slot of the key far longer than the target
+                    executor.execute("key", () -> {
+                        try {
+                            Thread.sleep(2);
+                        } catch (InterruptedException ignored) {
+                        }
+                    });
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(executor.drain(5, TimeUnit.SECONDS));
+
+        assertEquals(16, executor.getLimit());
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void boundedExecutorBacksOffWhenSlow() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(16);
+        AdaptiveLimit limit = new AdaptiveLimit(16, 2, 32, 99, 1, TimeUnit.MILLISECONDS);
+        KeySequentialBoundedExecutor executor =
+                new KeySequentialBoundedExecutor(limit, BoundedStrategy.BLOCK, underlyingExecutor);
+        CountDownLatch done = new CountDownLatch(200);
+
+        for (int i = 0; i < 200; ++i) {
+            executor.execute(new KeyRunnable<>(i, () -> {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException ignored) {
+                }
+                done.countDown();
+            }));
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.drain(1, TimeUnit.SECONDS));
+
+        assertTrue(executor.getLimit() < 16);
+        assertEquals(limit.getLimit(), executor.getLimit());
+
+        underlyingExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,183 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.jano7.executor.TestUtils.doSomething;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutorMetricsTest {
+
+    @Test(timeout = 5000)
+    public void runnerMetrics() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        ExecutorMetrics metrics = new ExecutorMetrics();
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                1,
+                metrics
+        );
+        CountDownLatch block = new CountDownLatch(1);
+
+        runner.run("key1", () -> {
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        for (int i = 0; i < 9; ++i) {
+            runner.run("key1", doSomething);
+        }
+        runner.run("key2", () -> {
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        Thread.sleep(100);
+
+        MetricsSnapshot blocked = metrics.snapshot();
+        assertEquals(2, blocked.getActiveKeys());
+        assertEquals(9, blocked.getQueuedTasks());
+        assertEquals(11, blocked.getEnqueuedTasks());
+
+        block.countDown();
+        while (metrics.getActiveKeys() > 0) {
+            Thread.sleep(10);
+        }
+
+        MetricsSnapshot completed = metrics.snapshot();
+        assertEquals(0, completed.getActiveKeys());
+        assertEquals(0, completed.getQueuedTasks());
+        assertEquals(11, completed.getCompletedTasks());
+        assertEquals(11, completed.getDispatches());
+        assertEquals(11, completed.getQueueWaitNanos().getCount());
+        assertEquals(11, completed.getRunNanos().getCount());
+        // the blocking tasks ran for at least 100ms, the tasks queued behind them waited as long
+        assertTrue(completed.getRunNanos().getMax() >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(completed.getQueueWaitNanos().getMax() >= TimeUnit.MILLISECONDS.toNanos(100));
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void asyncTaskRunTime() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        ExecutorMetrics metrics = new ExecutorMetrics();
+        KeySequentialExecutor executor = new KeySequentialExecutor(
+                underlyingExecutor,
+                new TaskExceptionHandler<Runnable>() {
+                },
+                1,
+                metrics
+        );
+
+        executor.submitAsync("key", () -> CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            return 1;
+        })).get();
+        executor.submit("key", () -> 2).get();
+
+        assertTrue(metrics.snapshot().getRunNanos().getMax() >= TimeUnit.MILLISECONDS.toNanos(100));
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void shutdownNowCancelsQueuedTasks() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        ExecutorMetrics metrics = new ExecutorMetrics();
+        KeySequentialExecutor executor = new KeySequentialExecutor(
+                underlyingExecutor,
+                new TaskExceptionHandler<Runnable>() {
+                },
+                1,
+                metrics
+        );
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch block = new CountDownLatch(1);
+
+        executor.execute(new KeyRunnable<>("key", () -> {
+            started.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        started.await();
+        for (int i = 0; i < 5; ++i) {
+            executor.execute(new KeyRunnable<>("key", doSomething));
+        }
+        executor.executeUrgent(new KeyRunnable<>("key", doSomething));
+        assertEquals(6, metrics.getQueuedTasks());
+
+        CompletableFuture<Map<Object, List<Runnable>>> notStarted = CompletableFuture.supplyAsync(() -> {
+            try {
+                return executor.shutdownNow(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        block.countDown();
+
+        assertEquals(6, notStarted.join().get("key").size());
+        assertEquals(0, metrics.getQueuedTasks());
+        assertEquals(0, metrics.getActiveKeys());
+        assertEquals(1, metrics.getCompletedTasks());
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test
+    public void registerMBean() throws Exception {
+        ExecutorMetrics metrics = new ExecutorMetrics();
+        ObjectName name = new ObjectName("com.jano7.executor:type=KeySequentialExecutor,name=test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        metrics.register(name);
+        metrics.onEnqueue("key");
+        try {
+            assertEquals(1L, server.getAttribute(name, "EnqueuedTasks"));
+            assertEquals(1L, server.getAttribute(name, "QueuedTasks"));
+        } finally {
+            metrics.unregister(name);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HotKeySamplerTest {
+
+    @Test
+    public void spaceSavingKeepsHeavyHitters() {
+        SpaceSaving<String> summary = new SpaceSaving<>(2);
+        for (int i = 0; i < 10; ++i) {
+            summary.add("heavy", 1);
+            summary.add("key" + i, 1);
+        }
+        assertEquals(10, summary.get("heavy").weight);
+        assertEquals(0, summary.get("heavy").error);
+        assertEquals(2, summary.counters().size());
+    }
+
+    @Test
+    public void spaceSavingReplacesLightestCounter() {
+        SpaceSaving<Integer> summary = new SpaceSaving<>(64);
+        Random random = new Random(7);
+        long total = 0;
+        for (int i = 0; i < 100000; ++i) {
+            int key = random.nextInt(1000);
+            long weight = random.nextInt(100);
+            long lightest = Long.MAX_VALUE;
+            for (SpaceSaving.Counter<Integer> counter : summary.counters()) {
+                lightest = Math.min(lightest, counter.weight);
+            }
+            boolean replaces = summary.get(key) == null && summary.counters().size() == 64;
+            SpaceSaving.Counter<Integer> counter = summary.add(key, weight);
+            total += weight;
+            if (replaces) {
+                assertEquals(lightest, counter.error);
+            }
+        }
+        // the weights of the counters add up to the weight of the stream
+        long weights = 0;
+        for (SpaceSaving.Counter<Integer> counter : summary.counters()) {
+            weights += counter.weight;
+        }
+        assertEquals(total, weights);
+    }
+
+    @Test(timeout = 5000)
+    public void backlogAndTopKeys() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        List<String> backlogged = new CopyOnWriteArrayList<>();
+        HotKeySampler<String> sampler = new HotKeySampler<>(8, 5, (key, backlog) -> backlogged.add(key));
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                1,
+                Instrumentation.compose(sampler, new ExecutorMetrics())
+        );
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(12);
+
+        runner.run("hot", () -> {
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+            done.countDown();
+        });
+        for (int i = 0; i < 10; ++i) {
+            runner.run("hot", done::countDown);
+        }
+        runner.run("cold", done::countDown);
+
+        assertEquals(1, backlogged.size());
+        assertEquals("hot", backlogged.get(0));
+        assertEquals("hot", sampler.topBySubmissions(1).get(0).getKey());
+        assertEquals(11, sampler.topBySubmissions(1).get(0).getWeight());
+        assertEquals(10, sampler.topByBacklog(2).get(0).getBacklog());
+
+        block.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(0, sampler.topByBacklog(1).get(0).getBacklog());
+        assertEquals("hot", sampler.topByRunTime(1).get(0).getKey());
+        assertEquals(2, sampler.topByRunTime(5).size());
+    }
+}
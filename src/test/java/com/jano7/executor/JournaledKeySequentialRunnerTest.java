@@ -0,0 +1,199 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class JournaledKeySequentialRunnerTest {
+
+    private static final JournalCodec<String> UTF8 = new JournalCodec<String>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Path> segments(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void replayUnfinishedTasksInOrder() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ExecutorService underlyingExecutor = Executors.newCachedThreadPool();
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherKeyDone = new CountDownLatch(10);
+        JournaledKeySequentialRunner<String, String> journaled = new JournaledKeySequentialRunner<>(
+                runner, directory, UTF8, UTF8, (key, payload) -> {
+            if (key.equals("b")) {
+                otherKeyDone.countDown();
+            } else if (payload.equals("5")) {
+                stuck.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        for (int i = 0; i < 10; ++i) {
+            journaled.submit("a", Integer.toString(i));
+            journaled.submit("b", Integer.toString(i));
+        }
+        stuck.await();
+        otherKeyDone.await();
+        journaled.close();
+        release.countDown();
+
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch replayDone = new CountDownLatch(5);
+        JournaledKeySequentialRunner<String, String> recovered = new JournaledKeySequentialRunner<>(
+                runner, directory, UTF8, UTF8, (key, payload) -> {
+            // the last payload for b may be replayed as well, its completion might not have been journaled
+            if (key.equals("a")) {
+                replayed.add(key + payload);
+                replayDone.countDown();
+            }
+        });
+        replayDone.await();
+        assertTrue(runner.awaitIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+        assertEquals(Arrays.asList("a5", "a6", "a7", "a8", "a9"), replayed);
+        recovered.close();
+        underlyingExecutor.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void submitWhileConsumerRunsOnSubmittingThread() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        // the first payload for an idle key is consumed by the submitting thread
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(Runnable::run);
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(1);
+        List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+        JournaledKeySequentialRunner<String, String> journaled = new JournaledKeySequentialRunner<>(
+                runner, directory, UTF8, UTF8, (key, payload) -> {
+            if (payload.equals("0")) {
+                consuming.countDown();
+                try {
+                    submitted.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            consumed.add(payload);
+        });
+        Thread first = new Thread(() -> journaled.submit("key", "0"));
+        first.start();
+        consuming.await();
+
+        journaled.submit("key", "1");
+        submitted.countDown();
+        first.join();
+
+        assertEquals(Arrays.asList("0", "1"), consumed);
+        journaled.close();
+    }
+
+    @Test(timeout = 10000)
+    public void deleteCompletedSegments() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch done = new CountDownLatch(1000);
+        JournaledKeySequentialRunner<String, String> journaled = new JournaledKeySequentialRunner<>(
+                runner, directory, UTF8, UTF8, (key, payload) -> done.countDown(),
+                256, scheduler, 1, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 1000; ++i) {
+            journaled.submit(Integer.toString(i % 10), Integer.toString(i));
+        }
+        done.await();
+        assertTrue(runner.awaitIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+        // only the active segment is left
+        assertEquals(1, segments(directory).size());
+        journaled.close();
+        scheduler.shutdown();
+        underlyingExecutor.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void ignoreTornRecord() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ExecutorService underlyingExecutor = Executors.newCachedThreadPool();
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        CountDownLatch release = new CountDownLatch(1);
+        JournaledKeySequentialRunner<String, String> journaled = new JournaledKeySequentialRunner<>(
+                runner, directory, UTF8, UTF8, (key, payload) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        journaled.submit("k", "p0");
+        journaled.submit("k", "p1");
+        journaled.submit("k", "p2");
+        journaled.close();
+        release.countDown();
+        assertTrue(runner.awaitIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+
+        // each record takes 8 + 9 + 4 + 1 + 2 bytes, damage the payload of the third one
+        try (RandomAccessFile file = new RandomAccessFile(segments(directory).get(0).toFile(), "rw")) {
+            file.seek(2 * 24 + 22);
+            file.write('x');
+        }
+        List<String> replayed = Collections.synchronizedList(new ArrayList<>());
+        JournaledKeySequentialRunner<String, String> recovered = new JournaledKeySequentialRunner<>(
+                runner, directory, UTF8, UTF8, (key, payload) -> replayed.add(payload));
+        assertTrue(runner.awaitIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+        assertEquals(Arrays.asList("p0", "p1"), replayed);
+        recovered.close();
+        underlyingExecutor.shutdown();
+    }
+}
@@ -0,0 +1,233 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeySequentialBatchRunnerTest {
+
+    @Test(timeout = 5000)
+    public void deliverBatchesInOrder() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> otherKey = Collections.synchronizedList(new ArrayList<>());
+        KeySequentialBatchRunner<String, Integer> runner = new KeySequentialBatchRunner<>(
+                underlyingExecutor,
+                3,
+                (key, batch) -> {
+                    if (key.equals("key1")) {
+                        started.countDown();
+                        try {
+                            latch.await();
+                        } catch (InterruptedException ignored) {
+                        }
+                        batches.add(batch);
+                    } else {
+                        otherKey.addAll(batch);
+                    }
+                }
+        );
+
+        runner.submit("key1", 0);
+        started.await();
+        for (int i = 1; i <= 7; ++i) {
+            runner.submit("key1", i);
+            runner.submit("key2", i);
+        }
+        latch.countDown();
+
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(
+                Arrays.asList(Collections.singletonList(0), Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6),
+                        Collections.singletonList(7)),
+                batches
+        );
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7), otherKey);
+    }
+
+    @Test(timeout = 5000)
+    public void lingerCollectsItems() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch delivered = new CountDownLatch(1);
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        KeySequentialBatchRunner<String, Integer> runner = new KeySequentialBatchRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                100,
+                scheduler,
+                200,
+                TimeUnit.MILLISECONDS,
+                (key, batch) -> {
+                    batches.add(batch);
+                    delivered.countDown();
+                }
+        );
+
+        for (int i = 0; i < 10; ++i) {
+            runner.submit("key", i);
+        }
+        assertTrue(delivered.await(1, TimeUnit.SECONDS));
+
+        scheduler.shutdown();
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)), batches);
+    }
+
+    @Test(timeout = 5000)
+    public void fullBatchDoesNotLinger() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        BlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<>();
+        KeySequentialBatchRunner<String, Integer> runner = new KeySequentialBatchRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                3,
+                scheduler,
+                1,
+                TimeUnit.HOURS,
+                (key, batch) -> {
+                    started.countDown();
+                    try {
+                        latch.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                    batches.add(batch);
+                }
+        );
+
+        for (int i = 0; i < 3; ++i) {
+            runner.submit("key", i);
+        }
+        started.await();
+        for (int i = 3; i < 8; ++i) {
+            runner.submit("key", i);
+        }
+        latch.countDown();
+        assertEquals(Arrays.asList(0, 1, 2), batches.take());
+        assertEquals(Arrays.asList(3, 4, 5), batches.take());
+        // the rest lingers until the batch fills up
+        runner.submit("key", 8);
+        assertEquals(Arrays.asList(6, 7, 8), batches.take());
+
+        scheduler.shutdownNow();
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void lingerAppliesToEveryBatch() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        BlockingQueue<List<Integer>> batches = new LinkedBlockingQueue<>();
+        KeySequentialBatchRunner<String, Integer> runner = new KeySequentialBatchRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                100,
+                scheduler,
+                200,
+                TimeUnit.MILLISECONDS,
+                (key, batch) -> {
+                    started.countDown();
+                    try {
+                        latch.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                    batches.add(batch);
+                }
+        );
+
+        runner.submit("key", 0);
+        started.await();
+        runner.submit("key", 1);
+        runner.submit("key", 2);
+        long released = System.nanoTime();
+        latch.countDown();
+        assertEquals(Collections.singletonList(0), batches.take());
+        runner.submit("key", 3);
+        assertEquals(Arrays.asList(1, 2, 3), batches.take());
+
+        assertTrue(System.nanoTime() - released >= TimeUnit.MILLISECONDS.toNanos(200));
+        scheduler.shutdown();
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void exceptionHandler() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newSingleThreadExecutor();
+        CountDownLatch handled = new CountDownLatch(2);
+        KeySequentialBatchRunner<String, Integer> runner = new KeySequentialBatchRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                    @Override
+                    public void onException(String key, Throwable cause) {
+                        handled.countDown();
+                    }
+                },
+                1,
+                (key, batch) -> {
+                    throw new IllegalStateException();
+                }
+        );
+
+        runner.submit("key", 1);
+        runner.submit("key", 2);
+        assertTrue(handled.await(1, TimeUnit.SECONDS));
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectInvalidMaxBatchSize() {
+        new KeySequentialBatchRunner<String, Integer>(Runnable::run, 0, (key, batch) -> {
+        });
+    }
+}
@@ -25,14 +25,14 @@ package com.jano7.executor;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static com.jano7.executor.BoundedStrategy.BLOCK;
-import static com.jano7.executor.BoundedStrategy.REJECT;
+import static com.jano7.executor.BoundedStrategy.*;
 import static com.jano7.executor.TestUtils.doSomething;
 import static org.junit.Assert.*;
 
@@ -225,4 +225,353 @@ public class KeySequentialBoundedExecutorTest {
             }
         }
     }
+
+    private static Runnable blockingTask(Object key, CountDownLatch latch) {
+        return new KeyRunnable<>(key, () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+    }
+
+    @Test(timeout = 5000)
+    public void rejectWhenKeyLimitReached() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(100, REJECT, 2, REJECT, underlyingExecutor);
+
+        bounded.execute(blockingTask("hot", block));
+        bounded.execute(new KeyRunnable<>("hot", doSomething));
+        try {
+            bounded.execute(new KeyRunnable<>("hot", doSomething));
+            fail("not rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(true);
+        }
+        // other keys are not affected by the hot one
+        CountDownLatch done = new CountDownLatch(1);
+        bounded.execute(new KeyRunnable<>("cold", done::countDown));
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+
+        block.countDown();
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void executeWithKey() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(100, REJECT, 3, REJECT, underlyingExecutor);
+
+        bounded.execute(blockingTask("hot", block));
+        bounded.execute("hot", () -> processed.add(1));
+        bounded.execute(new KeyRunnable<>("hot", () -> processed.add(2)));
+        try {
+            // the keyed tasks count against the same per-key limit
+            bounded.execute("hot", doSomething);
+            fail("not rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(true);
+        }
+        CountDownLatch nullKey = new CountDownLatch(2);
+        bounded.execute(null, nullKey::countDown);
+        bounded.execute(new KeyRunnable<>(null, nullKey::countDown));
+        assertTrue(nullKey.await(1, TimeUnit.SECONDS));
+        assertTrue(processed.isEmpty());
+
+        block.countDown();
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2), processed);
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void blockWhenKeyLimitReached() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(100, REJECT, 2, BLOCK, underlyingExecutor);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+
+        bounded.execute(blockingTask("key", block));
+        bounded.execute(new KeyRunnable<>("key", () -> processed.add(1)));
+        Thread t = new Thread(() -> {
+            bounded.execute(new KeyRunnable<>("key", () -> processed.add(2)));
+            done.countDown();
+        });
+        t.start();
+
+        assertFalse(done.await(500, TimeUnit.MILLISECONDS));
+
+        block.countDown();
+        done.await();
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2), processed);
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void dropOldestWhenKeyLimitReached() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(4, REJECT, 3, DROP_OLDEST, underlyingExecutor);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        CountDownLatch started = new CountDownLatch(1);
+
+        bounded.execute(new KeyRunnable<>("key", () -> {
+            started.countDown();
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        started.await();
+        for (int i = 0; i < 10; ++i) {
+            final int toProcess = i;
+            // the overall limit is not exceeded as the permit of a dropped task is released
+            bounded.execute(new KeyRunnable<>("key", () -> processed.add(toProcess)));
+        }
+
+        block.countDown();
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(8, 9), processed);
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000, expected = RejectedExecutionException.class)
+    public void rejectWhenNothingToDrop() {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(10, REJECT, 1, DROP_OLDEST, underlyingExecutor);
+
+        try {
+            bounded.execute(blockingTask("key", block));
+            while (true) {
+                // the blocking task is dropped unless started
+                bounded.execute(blockingTask("key", block));
+            }
+        } finally {
+            underlyingExecutor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void callerRunsWhenKeyLimitReached() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(100, REJECT, 2, CALLER_RUNS, underlyingExecutor);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        List<Thread> threads = Collections.synchronizedList(new LinkedList<>());
+
+        bounded.execute(blockingTask("key", block));
+        bounded.execute(new KeyRunnable<>("key", () -> processed.add(1)));
+        new Thread(() -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException ignored) {
+            }
+            block.countDown();
+        }).start();
+        bounded.execute(new KeyRunnable<>("key", () -> {
+            processed.add(2);
+            threads.add(Thread.currentThread());
+        }));
+
+        // the caller has run the task after the previous ones have completed
+        assertEquals(Arrays.asList(1, 2), processed);
+        assertEquals(Collections.singletonList(Thread.currentThread()), threads);
+
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void waitingForKeyLimitDoesNotHoldOverallPermits() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(4, REJECT, 1, BLOCK, underlyingExecutor);
+
+        bounded.execute(blockingTask("hot", block));
+        List<Thread> producers = new LinkedList<>();
+        for (int i = 0; i < 3; ++i) {
+            Thread producer = new Thread(() -> bounded.execute(new KeyRunnable<>("hot", doSomething)));
+            producer.start();
+            producers.add(producer);
+        }
+        for (Thread producer : producers) {
+            while (producer.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+        // the three permits left are not taken by the producers waiting for the hot key
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 3; ++i) {
+            bounded.execute(new KeyRunnable<>("cold" + i, done::countDown));
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+
+        block.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void rejectReentrantSubmissionWhenKeyLimitReached() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        for (BoundedStrategy strategy : Arrays.asList(BLOCK, CALLER_RUNS)) {
+            KeySequentialBoundedExecutor bounded =
+                    new KeySequentialBoundedExecutor(100, REJECT, 1, strategy, underlyingExecutor);
+            List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+            CountDownLatch done = new CountDownLatch(1);
+
+            bounded.execute("k", () -> {
+                for (int i = 0; i < 2; ++i) {
+                    try {
+                        // the task itself holds the only slot of the key
+                        bounded.execute("k", () -> processed.add(0));
+                        processed.add(-1);
+                    } catch (RejectedExecutionException e) {
+                        processed.add(1);
+                    }
+                }
+                done.countDown();
+            });
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            // not rejected once the task has completed
+            bounded.execute("k", () -> processed.add(2));
+
+            assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(1, 1, 2), processed);
+        }
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void keyLimitUnderLoad() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(50, BLOCK, 3, BLOCK, underlyingExecutor);
+        List<List<Integer>> processed = new LinkedList<>();
+        List<Thread> producers = new LinkedList<>();
+        for (int key = 0; key < 4; ++key) {
+            final int taskKey = key;
+            List<Integer> keyProcessed = Collections.synchronizedList(new LinkedList<>());
+            processed.add(keyProcessed);
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < 10000; ++i) {
+                    final int toProcess = i;
+                    bounded.execute(new KeyRunnable<>(taskKey, () -> keyProcessed.add(toProcess)));
+                }
+            }));
+        }
+        producers.forEach(Thread::start);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        for (List<Integer> keyProcessed : processed) {
+            assertEquals(10000, keyProcessed.size());
+            for (int i = 0; i < 10000; ++i) {
+                assertEquals(i, keyProcessed.get(i).intValue());
+            }
+        }
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overallLimitDoesNotSupportDropOldest() {
+        new KeySequentialBoundedExecutor(10, DROP_OLDEST, Runnable::run);
+    }
+
+    @Test(timeout = 5000)
+    public void executeWithTimeout() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded = new KeySequentialBoundedExecutor(2, REJECT, underlyingExecutor);
+
+        assertTrue(bounded.execute(blockingTask("key1", block), 1, TimeUnit.SECONDS));
+        assertTrue(bounded.execute(blockingTask("key2", block), 1, TimeUnit.SECONDS));
+        assertFalse(bounded.execute(doSomething, 100, TimeUnit.MILLISECONDS));
+
+        block.countDown();
+        assertTrue(bounded.execute(doSomething, 1, TimeUnit.SECONDS));
+
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void executeWithTimeoutWhenKeyLimitReached() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded =
+                new KeySequentialBoundedExecutor(10, REJECT, 1, REJECT, underlyingExecutor);
+
+        assertTrue(bounded.execute(blockingTask("key", block), 1, TimeUnit.SECONDS));
+        assertFalse(bounded.execute(new KeyRunnable<>("key", doSomething), 100, TimeUnit.MILLISECONDS));
+        assertTrue(bounded.execute(new KeyRunnable<>("other key", doSomething), 1, TimeUnit.SECONDS));
+
+        block.countDown();
+        assertTrue(bounded.execute(new KeyRunnable<>("key", doSomething), 1, TimeUnit.SECONDS));
+
+        assertTrue(bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS));
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void blockedProducersAcquireBeforeLaterDrain() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        CountDownLatch block = new CountDownLatch(1);
+        KeySequentialBoundedExecutor bounded = new KeySequentialBoundedExecutor(1, BLOCK, underlyingExecutor);
+        LinkedBlockingQueue<Throwable> rejected = new LinkedBlockingQueue<>();
+
+        bounded.execute(blockingTask("key", block));
+        Thread producer = new Thread(() -> {
+            try {
+                bounded.execute(doSomething);
+            } catch (Throwable t) {
+                rejected.offer(t);
+            }
+        });
+        producer.start();
+        Thread drain = new Thread(() -> {
+            try {
+                bounded.drain(Long.MAX_VALUE, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+        });
+        // the blocked producer is woken up first
+        Thread.sleep(200);
+        drain.start();
+        Thread.sleep(200);
+        block.countDown();
+
+        producer.join();
+        drain.join();
+        assertTrue(rejected.isEmpty());
+        assertTrue(bounded.drain(0, TimeUnit.SECONDS));
+        try {
+            bounded.execute(doSomething, 1, TimeUnit.SECONDS);
+            fail("not rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(true);
+        }
+        underlyingExecutor.shutdownNow();
+    }
 }
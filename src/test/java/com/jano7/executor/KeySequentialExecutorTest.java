@@ -25,14 +25,25 @@ package com.jano7.executor;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.jano7.executor.TestUtils.doSomething;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class KeySequentialExecutorTest {
 
@@ -75,4 +86,111 @@ public class KeySequentialExecutorTest {
 
         underlyingExecutor.shutdownNow();
     }
+
+    @Test(timeout = 5000)
+    public void submitOrderedWithKeyRunnable() throws Exception {
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService underlyingExecutor = Executors.newCachedThreadPool();
+        KeySequentialExecutor executor = new KeySequentialExecutor(underlyingExecutor);
+
+        executor.execute(new KeyRunnable<>("key", () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+            processed.add(1);
+        }));
+        CompletableFuture<Integer> submitted = executor.submit("key", () -> {
+            processed.add(2);
+            return 2;
+        });
+        CompletableFuture<Integer> submittedAsync = executor.submitAsync(
+                "key",
+                () -> CompletableFuture.supplyAsync(() -> {
+                    processed.add(3);
+                    return 3;
+                })
+        );
+        latch.countDown();
+
+        assertEquals(2, submitted.get().intValue());
+        assertEquals(3, submittedAsync.get().intValue());
+        assertEquals(Arrays.asList(1, 2, 3), processed);
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void drain() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialExecutor executor = new KeySequentialExecutor(underlyingExecutor);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger(0);
+
+        executor.execute(new KeyRunnable<>("key1", () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+            completed.incrementAndGet();
+        }));
+        for (int i = 0; i < 100; ++i) {
+            executor.execute(new KeyRunnable<>("key" + i % 3, completed::incrementAndGet));
+        }
+
+        assertFalse(executor.drain(100, TimeUnit.MILLISECONDS));
+        try {
+            executor.execute(doSomething);
+            fail();
+        } catch (RejectedExecutionException ignored) {
+        }
+        latch.countDown();
+        assertTrue(executor.drain(1, TimeUnit.SECONDS));
+        assertEquals(101, completed.get());
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void shutdownNowReturnsQueuedTasks() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialExecutor executor = new KeySequentialExecutor(underlyingExecutor);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        Runnable queued1 = new KeyRunnable<>("key1", doSomething);
+        Runnable queued2 = new KeyRunnable<>("key1", doSomething);
+        Runnable urgent = new KeyRunnable<>("key1", doSomething);
+
+        executor.execute(new KeyRunnable<>("key1", () -> {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        started.await();
+        executor.execute(queued1);
+        executor.execute(queued2);
+        executor.executeUrgent(urgent);
+
+        CompletableFuture<Map<Object, List<Runnable>>> notStarted = CompletableFuture.supplyAsync(() -> {
+            try {
+                return executor.shutdownNow(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        latch.countDown();
+
+        Map<Object, List<Runnable>> tasks = notStarted.join();
+        assertEquals(1, tasks.size());
+        assertEquals(3, tasks.get("key1").size());
+        assertSame(queued1, tasks.get("key1").get(0));
+        assertSame(queued2, tasks.get("key1").get(1));
+        assertSame(urgent, tasks.get("key1").get(2));
+
+        underlyingExecutor.shutdownNow();
+    }
 }
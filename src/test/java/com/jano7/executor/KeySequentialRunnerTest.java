@@ -26,6 +26,7 @@ package com.jano7.executor;
 import org.junit.Test;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -301,4 +302,650 @@ public class KeySequentialRunnerTest {
 
         assertTrue(submittedTasks.containsAll(completedTasks) && completedTasks.containsAll(submittedTasks));
     }
+
+    @Test(timeout = 5000)
+    public void rejectedTasksWaitForPendingAsyncTask() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newSingleThreadExecutor();
+        AtomicInteger accepted = new AtomicInteger(1);
+        Executor rejectingExecutor = task -> {
+            if (accepted.getAndDecrement() > 0) {
+                underlyingExecutor.execute(task);
+            } else {
+                throw new RejectedExecutionException();
+            }
+        };
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(rejectingExecutor);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        CompletableFuture<Integer> stage = new CompletableFuture<>();
+
+        runner.run("key", () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+            processed.add(1);
+        });
+        CompletableFuture<Integer> async = runner.submitAsync("key", () -> stage.thenApply(result -> {
+            processed.add(result);
+            return result;
+        }));
+        runner.run("key", () -> processed.add(3));
+        // the next turn is rejected, the thread of the first task completes the queued ones
+        blocked.countDown();
+        Thread.sleep(100);
+
+        assertEquals(Collections.singletonList(1), processed);
+        try {
+            runner.run("key", () -> processed.add(4));
+            fail();
+        } catch (RejectedExecutionException ignored) {
+        }
+        stage.complete(2);
+        assertEquals(2, async.get().intValue());
+        assertTrue(runner.awaitIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(Arrays.asList(1, 2, 3), processed);
+
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void callerRunsWhenRejected() throws InterruptedException {
+        ThreadPoolExecutor underlyingExecutor =
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(
+                underlyingExecutor, new TaskExceptionHandler<String>() {
+        }, 1, null, true);
+        CountDownLatch blocked = new CountDownLatch(1);
+        runner.run("blocking", () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        List<Thread> executingThreads = new LinkedList<>();
+
+        runner.run("idle", () -> executingThreads.add(Thread.currentThread()));
+
+        assertEquals(Collections.singletonList(Thread.currentThread()), executingThreads);
+        blocked.countDown();
+        underlyingExecutor.shutdown();
+        underlyingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+    }
+
+    @Test(timeout = 20000)
+    public void callerRunsKeepsOrderUnderLoad() throws Exception {
+        ThreadPoolExecutor underlyingExecutor =
+                new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(2));
+        KeySequentialRunner<Integer> runner = new KeySequentialRunner<>(
+                underlyingExecutor, new TaskExceptionHandler<Integer>() {
+        }, 1, null, true);
+        int keys = 10;
+        int tasksPerKey = 10_000;
+        int[] lastTask = new int[keys];
+        AtomicInteger[] running = new AtomicInteger[keys];
+        AtomicInteger violations = new AtomicInteger(0);
+        for (int key = 0; key < keys; ++key) {
+            running[key] = new AtomicInteger(0);
+        }
+        ExecutorService producers = Executors.newFixedThreadPool(keys);
+        for (int key = 0; key < keys; ++key) {
+            final int taskKey = key;
+            producers.execute(() -> {
+                for (int i = 1; i <= tasksPerKey; ++i) {
+                    final int taskId = i;
+                    runner.run(taskKey, () -> {
+                        if (running[taskKey].incrementAndGet() != 1 || lastTask[taskKey] != taskId - 1) {
+                            violations.incrementAndGet();
+                        }
+                        lastTask[taskKey] = taskId;
+                        running[taskKey].decrementAndGet();
+                    });
+                }
+            });
+        }
+        producers.shutdown();
+        producers.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        underlyingExecutor.shutdown();
+        underlyingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        assertEquals(0, violations.get());
+        for (int key = 0; key < keys; ++key) {
+            assertEquals(tasksPerKey, lastTask[key]);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void concurrentProducersUnderLoad() throws Exception {
+        int producers = 16;
+        int keys = 10000;
+        int tasksPerProducer = 100000;
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        KeySequentialRunner<Integer> runner = new KeySequentialRunner<>(underlyingExecutor);
+        // every producer tracks its own sequence per key as the order is guaranteed per submitting thread only
+        int[][] lastProcessed = new int[producers][keys];
+        AtomicInteger outOfOrder = new AtomicInteger(0);
+        List<Thread> producerThreads = new LinkedList<>();
+        for (int p = 0; p < producers; ++p) {
+            final int producer = p;
+            Arrays.fill(lastProcessed[producer], -1);
+            producerThreads.add(new Thread(() -> {
+                for (int i = 0; i < tasksPerProducer; ++i) {
+                    final int key = ThreadLocalRandom.current().nextInt(keys);
+                    final int sequence = i;
+                    runner.run(key, () -> {
+                        if (lastProcessed[producer][key] >= sequence) {
+                            outOfOrder.incrementAndGet();
+                        }
+                        lastProcessed[producer][key] = sequence;
+                    });
+                }
+            }));
+        }
+        producerThreads.forEach(Thread::start);
+        for (Thread thread : producerThreads) {
+            thread.join();
+        }
+        underlyingExecutor.shutdown();
+        underlyingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+
+        assertEquals(0, outOfOrder.get());
+
+        Field keyRunners = KeySequentialRunner.class.getDeclaredField("keyRunners");
+        keyRunners.setAccessible(true);
+        assertTrue(((Map<?, ?>) keyRunners.get(runner)).isEmpty());
+    }
+
+    @Test(timeout = 20000)
+    public void recycledRunnersUnderLoad() throws Exception {
+        int producers = 8;
+        int keys = 100;
+        int tasksPerProducer = 50000;
+        ThreadLocal<Integer> runnerKey = new ThreadLocal<>();
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        KeySequentialRunner<Integer> runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<Integer>() {
+                },
+                1,
+                new Instrumentation<Integer>() {
+                    @Override
+                    public void onStart(Integer key, long queueWaitNanos) {
+                        runnerKey.set(key);
+                    }
+                },
+                false,
+                16
+        );
+        int[][] lastProcessed = new int[producers][keys];
+        AtomicInteger[] running = new AtomicInteger[keys];
+        AtomicInteger violations = new AtomicInteger(0);
+        for (int key = 0; key < keys; ++key) {
+            running[key] = new AtomicInteger(0);
+        }
+        List<Thread> producerThreads = new LinkedList<>();
+        for (int p = 0; p < producers; ++p) {
+            final int producer = p;
+            Arrays.fill(lastProcessed[producer], -1);
+            producerThreads.add(new Thread(() -> {
+                for (int i = 0; i < tasksPerProducer; ++i) {
+                    final int key = ThreadLocalRandom.current().nextInt(keys);
+                    final int sequence = i;
+                    if (i % 10 == 0) {
+                        // the conflated tasks overtake the plain ones, so only the key is checked
+                        runner.runConflated(key, producer, () -> {
+                            if (runnerKey.get() != key || running[key].incrementAndGet() != 1) {
+                                violations.incrementAndGet();
+                            }
+                            running[key].decrementAndGet();
+                        });
+                    } else {
+                        runner.run(key, () -> {
+                            // a stale runner must never execute the task for another key
+                            if (runnerKey.get() != key || running[key].incrementAndGet() != 1) {
+                                violations.incrementAndGet();
+                            }
+                            if (lastProcessed[producer][key] >= sequence) {
+                                violations.incrementAndGet();
+                            }
+                            lastProcessed[producer][key] = sequence;
+                            running[key].decrementAndGet();
+                        });
+                    }
+                }
+            }));
+        }
+        producerThreads.forEach(Thread::start);
+        for (Thread thread : producerThreads) {
+            thread.join();
+        }
+        // the keys rejected by a shut down executor are not recycled
+        assertTrue(runner.awaitIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(10)));
+        underlyingExecutor.shutdown();
+
+        assertEquals(0, violations.get());
+        Field recycler = KeySequentialRunner.class.getDeclaredField("recycler");
+        recycler.setAccessible(true);
+        assertNotNull(((Recycler<?>) recycler.get(runner)).acquire());
+    }
+
+    @Test(timeout = 10000)
+    public void forkJoinPoolTurns() throws Exception {
+        ForkJoinPool underlyingExecutor = new ForkJoinPool(4);
+        KeySequentialRunner<Integer> runner = new KeySequentialRunner<>(underlyingExecutor);
+        int keys = 100;
+        int tasksPerKey = 1000;
+        int[] lastProcessed = new int[keys];
+        AtomicInteger violations = new AtomicInteger(0);
+
+        for (int i = 1; i <= tasksPerKey; ++i) {
+            for (int key = 0; key < keys; ++key) {
+                final int taskKey = key;
+                final int sequence = i;
+                runner.run(key, () -> {
+                    if (lastProcessed[taskKey] != sequence - 1
+                            || !(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+                        violations.incrementAndGet();
+                    }
+                    lastProcessed[taskKey] = sequence;
+                });
+            }
+        }
+        assertTrue(runner.awaitIdle(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)));
+
+        assertEquals(0, violations.get());
+        for (int key = 0; key < keys; ++key) {
+            assertEquals(tasksPerKey, lastProcessed[key]);
+        }
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void forkJoinPoolTurnsAreForkedByWorkers() throws Exception {
+        ForkJoinPool underlyingExecutor = new ForkJoinPool(1);
+        KeySequentialRunner<Integer> runner = new KeySequentialRunner<>(underlyingExecutor);
+        CountDownLatch done = new CountDownLatch(1);
+
+        int[] queued = underlyingExecutor.submit(() -> {
+            runner.run(1, done::countDown);
+            // the only worker is busy, so the turn stays where it was put
+            return new int[]{ForkJoinTask.getQueuedTaskCount(), underlyingExecutor.getQueuedSubmissionCount()};
+        }).get();
+
+        assertEquals(1, queued[0]);
+        assertEquals(0, queued[1]);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void forkJoinPoolTurnReportsEscapingThrowable() throws Exception {
+        LinkedBlockingQueue<Throwable> uncaught = new LinkedBlockingQueue<>();
+        ForkJoinPool underlyingExecutor = new ForkJoinPool(
+                1,
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                (thread, t) -> uncaught.offer(t),
+                false
+        );
+        Error failure = new Error("test");
+        KeySequentialRunner<Integer> runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<Integer>() {
+                    @Override
+                    public void onException(Integer key, Throwable t) {
+                        throw failure;
+                    }
+                }
+        );
+        CountDownLatch done = new CountDownLatch(1);
+
+        runner.run(1, () -> {
+            throw new RuntimeException();
+        });
+        assertSame(failure, uncaught.poll(1, TimeUnit.SECONDS));
+        runner.run(2, done::countDown);
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void nullKey() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+
+        for (int i = 0; i < 100; ++i) {
+            final int toProcess = i;
+            runner.run(null, () -> processed.add(toProcess));
+        }
+
+        underlyingExecutor.shutdown();
+        underlyingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i, processed.get(i).intValue());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void maxTasksPerTurn() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newSingleThreadExecutor();
+        AtomicInteger submissions = new AtomicInteger(0);
+        Executor countingExecutor = task -> {
+            submissions.incrementAndGet();
+            underlyingExecutor.execute(task);
+        };
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(
+                countingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                10
+        );
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(100);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+
+        runner.run("key", () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+            processed.add(0);
+            done.countDown();
+        });
+        for (int i = 1; i < 100; ++i) {
+            final int toProcess = i;
+            runner.run("key", () -> {
+                processed.add(toProcess);
+                done.countDown();
+            });
+        }
+        latch.countDown();
+        done.await();
+
+        underlyingExecutor.shutdownNow();
+
+        assertEquals(10, submissions.get());
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i, processed.get(i).intValue());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void urgentTasksOvertakeQueuedTasks() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                1,
+                new ExecutorMetrics()
+        );
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(8);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+
+        runner.run("key", () -> {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+            processed.add(0);
+            done.countDown();
+        });
+        for (int i = 1; i < 6; ++i) {
+            final int toProcess = i;
+            runner.run("key", () -> {
+                processed.add(toProcess);
+                done.countDown();
+            });
+        }
+        started.await();
+        runner.runUrgent("key", () -> {
+            processed.add(-1);
+            done.countDown();
+        });
+        runner.runUrgent("key", () -> {
+            processed.add(-2);
+            done.countDown();
+        });
+        latch.countDown();
+        done.await();
+        runner.runUrgent("key", doSomething);
+
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, -1, -2, 1, 2, 3, 4, 5), processed);
+    }
+
+    @Test(timeout = 5000)
+    public void conflateQueuedTasks() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<String> processed = Collections.synchronizedList(new LinkedList<>());
+
+        runner.runConflated("key", "price", () -> {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+            processed.add("price0");
+        });
+        started.await();
+        for (int i = 1; i <= 10; ++i) {
+            final String price = "price" + i;
+            runner.runConflated("key", "price", () -> processed.add(price));
+            runner.runConflated("key", "volume", () -> processed.add("volume" + price));
+        }
+        runner.run("key", () -> processed.add("plain"));
+        runner.runConflated("key", "price", () -> processed.add("price11"));
+        latch.countDown();
+
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("price0", "price11", "volumeprice10", "plain"), processed);
+    }
+
+    @Test(timeout = 5000)
+    public void unregisterStartedConflatedTasks() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch lastStarted = new CountDownLatch(1);
+        CountDownLatch last = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+
+        runner.run("key", () -> {
+            try {
+                first.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        for (int i = 0; i < 1000; ++i) {
+            runner.runConflated("key", "tag" + i, processed::incrementAndGet);
+        }
+        assertEquals(1000, runner.conflatedTags("key"));
+        runner.run("key", () -> {
+            lastStarted.countDown();
+            try {
+                last.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        first.countDown();
+        lastStarted.await();
+        // the key is still busy, yet the tags of the started tasks are gone
+        assertEquals(0, runner.conflatedTags("key"));
+        assertEquals(1000, processed.get());
+        last.countDown();
+
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void mergeQueuedTasks() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                },
+                1,
+                new ExecutorMetrics()
+        );
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+
+        runner.run("key", () -> {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        started.await();
+        for (int i = 1; i <= 5; ++i) {
+            final int toProcess = i;
+            runner.runConflated("key", "tag", () -> processed.add(toProcess), (queued, newer) -> () -> {
+                queued.run();
+                newer.run();
+            });
+        }
+        latch.countDown();
+
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), processed);
+    }
+
+    @Test(timeout = 5000)
+    public void skipExpiredTasks() throws InterruptedException {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(2);
+        List<Runnable> expired = Collections.synchronizedList(new LinkedList<>());
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                    @Override
+                    public void onExpired(String key, Runnable task) {
+                        expired.add(task);
+                    }
+                }
+        );
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        Runnable stale = () -> processed.add(1);
+
+        runner.run("key", () -> {
+            started.countDown();
+            try {
+                latch.await();
+            } catch (InterruptedException ignored) {
+            }
+            processed.add(0);
+        });
+        started.await();
+        runner.runExpiring("key", stale, 1, TimeUnit.NANOSECONDS);
+        runner.runExpiring("key", () -> processed.add(2), 1, TimeUnit.MINUTES);
+        Thread.sleep(1);
+        latch.countDown();
+
+        underlyingExecutor.shutdown();
+        assertTrue(underlyingExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 2), processed);
+        assertEquals(Collections.singletonList(stale), expired);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectInvalidMaxTasksPerTurn() {
+        new KeySequentialRunner<String>(Runnable::run, new TaskExceptionHandler<String>() {
+        }, 0);
+    }
+
+    @Test(timeout = 5000)
+    public void submit() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        RuntimeException exception = new RuntimeException("test");
+
+        CompletableFuture<Integer> result = runner.submit("key", () -> 1);
+        CompletableFuture<Integer> failure = runner.submit("key", () -> {
+            throw exception;
+        });
+
+        assertEquals(1, result.get().intValue());
+        try {
+            failure.get();
+            fail("not failed");
+        } catch (ExecutionException e) {
+            assertEquals(exception, e.getCause());
+        }
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void submitAsync() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newSingleThreadExecutor();
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        CompletableFuture<Integer> io = new CompletableFuture<>();
+
+        CompletableFuture<Integer> key1Task1 = runner.submitAsync("key1", () -> {
+            processed.add(1);
+            return io.thenApply(result -> {
+                processed.add(2);
+                return result;
+            });
+        });
+        CompletableFuture<Integer> key1Task2 = runner.submit("key1", () -> {
+            processed.add(3);
+            return 3;
+        });
+        // the only thread of the underlying executor is not blocked by the pending stage
+        CompletableFuture<Integer> key2Task1 = runner.submit("key2", () -> 4);
+
+        assertEquals(4, key2Task1.get().intValue());
+        assertFalse(key1Task1.isDone());
+        assertFalse(key1Task2.isDone());
+
+        io.complete(2);
+
+        assertEquals(2, key1Task1.get().intValue());
+        assertEquals(3, key1Task2.get().intValue());
+        assertEquals(Arrays.asList(1, 2, 3), processed);
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void submitAsyncFailure() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(10);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        RuntimeException exception = new RuntimeException("test");
+        CompletableFuture<Integer> failedStage = new CompletableFuture<>();
+        failedStage.completeExceptionally(exception);
+
+        CompletableFuture<Integer> thrown = runner.submitAsync("key", () -> {
+            throw exception;
+        });
+        CompletableFuture<Integer> failed = runner.submitAsync("key", () -> failedStage);
+        CompletableFuture<Integer> next = runner.submit("key", () -> 1);
+
+        assertEquals(1, next.get().intValue());
+        assertEquals(exception, thrown.handle((result, t) -> t).get());
+        assertEquals(exception, failed.handle((result, t) -> t.getCause() == null ? t : t.getCause()).get());
+
+        underlyingExecutor.shutdownNow();
+    }
 }
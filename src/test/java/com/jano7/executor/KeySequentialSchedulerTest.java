@@ -0,0 +1,211 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jano7.executor.TestUtils.doSomething;
+import static org.junit.Assert.*;
+
+public class KeySequentialSchedulerTest {
+
+    @Test(timeout = 5000)
+    public void executeAfterDelay() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialScheduler<String> scheduler =
+                new KeySequentialScheduler<>(new KeySequentialRunner<>(underlyingExecutor));
+
+        long start = System.nanoTime();
+        ScheduledFuture<?> future = scheduler.schedule("key", doSomething, 100, TimeUnit.MILLISECONDS);
+        future.get();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(future.isDone());
+
+        scheduler.shutdown();
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void joinQueueOfKey() throws Exception {
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        CountDownLatch blocked = new CountDownLatch(1);
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialExecutor executor = new KeySequentialExecutor(underlyingExecutor);
+        KeySequentialScheduler<String> scheduler = new KeySequentialScheduler<>(executor);
+
+        executor.execute(new KeyRunnable<>("key", () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException ignored) {
+            }
+            processed.add(1);
+        }));
+        ScheduledFuture<?> future = scheduler.schedule("key", () -> processed.add(2), 10, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> otherKey = scheduler.schedule("other", doSomething, 10, TimeUnit.MILLISECONDS);
+
+        otherKey.get();
+        Thread.sleep(100);
+        assertFalse(future.isDone());
+        blocked.countDown();
+        future.get();
+
+        assertEquals(1, processed.get(0).intValue());
+        assertEquals(2, processed.get(1).intValue());
+
+        scheduler.shutdown();
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void periodicRunsNeverOverlap() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(false);
+        AtomicBoolean overlapped = new AtomicBoolean(false);
+        AtomicInteger runs = new AtomicInteger(0);
+        CountDownLatch fiveRuns = new CountDownLatch(5);
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialRunner<String> runner = new KeySequentialRunner<>(underlyingExecutor);
+        KeySequentialScheduler<String> scheduler =
+                new KeySequentialScheduler<>(runner, 1, TimeUnit.MILLISECONDS, 64, Executors.defaultThreadFactory());
+        Runnable task = () -> {
+            if (!running.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ignored) {
+            }
+            running.set(false);
+        };
+
+        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate("key", () -> {
+            task.run();
+            runs.incrementAndGet();
+            fiveRuns.countDown();
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 20; ++i) {
+            runner.run("key", task);
+        }
+        fiveRuns.await();
+        assertTrue(future.cancel(false));
+        int cancelledAt = runs.get();
+        Thread.sleep(50);
+
+        assertFalse(overlapped.get());
+        assertTrue(runs.get() <= cancelledAt + 1);
+
+        scheduler.shutdown();
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void failingPeriodicTaskSuppressed() throws Exception {
+        AtomicInteger runs = new AtomicInteger(0);
+        LinkedBlockingQueue<Throwable> handledExceptions = new LinkedBlockingQueue<>();
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialScheduler<String> scheduler = new KeySequentialScheduler<>(new KeySequentialRunner<>(
+                underlyingExecutor,
+                new TaskExceptionHandler<String>() {
+                    @Override
+                    public void onException(String key, Throwable cause) {
+                        handledExceptions.add(cause);
+                    }
+                }
+        ));
+
+        ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay("key", () -> {
+            if (runs.incrementAndGet() == 3) {
+                throw new IllegalStateException("third run");
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(handledExceptions.take() instanceof IllegalStateException);
+        Thread.sleep(50);
+        assertEquals(3, runs.get());
+
+        scheduler.shutdown();
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void cancelAndShutdown() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialScheduler<Integer> scheduler =
+                new KeySequentialScheduler<>(new KeySequentialRunner<>(underlyingExecutor));
+
+        ScheduledFuture<?> cancelled = scheduler.schedule(1, doSomething, 1, TimeUnit.HOURS);
+        ScheduledFuture<?> pending = scheduler.schedule(2, doSomething, 2, TimeUnit.HOURS);
+        assertTrue(cancelled.cancel(false));
+        assertTrue(cancelled.isCancelled());
+        assertTrue(pending.getDelay(TimeUnit.MINUTES) > 118);
+        assertTrue(cancelled.compareTo(pending) < 0);
+
+        scheduler.shutdown();
+
+        assertTrue(pending.isCancelled());
+        try {
+            scheduler.schedule(3, doSomething, 1, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (RejectedExecutionException ignored) {
+        }
+
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void manyTimers() throws InterruptedException {
+        int timers = 100_000;
+        CountDownLatch fired = new CountDownLatch(timers);
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        KeySequentialScheduler<Integer> scheduler = new KeySequentialScheduler<>(
+                new KeySequentialRunner<>(underlyingExecutor),
+                1,
+                TimeUnit.MILLISECONDS,
+                8,
+                Executors.defaultThreadFactory()
+        );
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < timers; ++i) {
+            scheduler.schedule(i % 1000, fired::countDown, random.nextInt(200), TimeUnit.MILLISECONDS);
+        }
+        fired.await();
+
+        scheduler.shutdown();
+        underlyingExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LongKeySequentialRunnerTest {
+
+    @Test(timeout = 20000)
+    public void executeTasksInOrderPerKey() throws Exception {
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(8);
+        LongKeySequentialRunner runner = new LongKeySequentialRunner(underlyingExecutor);
+        int keys = 1000;
+        int tasksPerKey = 100;
+        long[] lastTask = new long[keys];
+        AtomicInteger violations = new AtomicInteger(0);
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        for (int p = 0; p < 4; ++p) {
+            final int producer = p;
+            producers.execute(() -> {
+                // each producer submits the tasks for its own keys in order
+                for (int i = 1; i <= tasksPerKey; ++i) {
+                    for (int key = producer; key < keys; key += 4) {
+                        final int taskKey = key;
+                        final int taskId = i;
+                        runner.run(Long.MAX_VALUE - key, () -> {
+                            if (lastTask[taskKey] != taskId - 1) {
+                                violations.incrementAndGet();
+                            }
+                            lastTask[taskKey] = taskId;
+                        });
+                    }
+                }
+            });
+        }
+        producers.shutdown();
+        producers.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        CompletableFuture<?>[] lastTasks = new CompletableFuture<?>[keys];
+        for (int key = 0; key < keys; ++key) {
+            lastTasks[key] = runner.submit(Long.MAX_VALUE - key, () -> null);
+        }
+        CompletableFuture.allOf(lastTasks).get();
+
+        assertEquals(0, violations.get());
+        for (int key = 0; key < keys; ++key) {
+            assertEquals(tasksPerKey, lastTask[key]);
+        }
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void intKeysAndExceptionHandling() throws Exception {
+        LinkedBlockingQueue<Integer> failedKeys = new LinkedBlockingQueue<>();
+        ExecutorService underlyingExecutor = Executors.newFixedThreadPool(4);
+        IntKeySequentialRunner runner = new IntKeySequentialRunner(
+                underlyingExecutor,
+                new TaskExceptionHandler<Integer>() {
+                    @Override
+                    public void onException(Integer key, Throwable cause) {
+                        failedKeys.add(key);
+                    }
+                }
+        );
+
+        runner.run(-5, () -> {
+            throw new IllegalStateException();
+        });
+        assertEquals(42, runner.submit(-5, () -> 42).get().intValue());
+
+        assertEquals(-5, failedKeys.take().intValue());
+        underlyingExecutor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void rejectHandling() {
+        LongKeySequentialRunner runner = new LongKeySequentialRunner(task -> {
+            throw new RejectedExecutionException();
+        });
+
+        try {
+            runner.run(1, TestUtils.doSomething);
+            fail("not rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(true);
+        }
+        // the rejected key doesn't stay in the map
+        try {
+            runner.run(1, TestUtils.doSomething);
+            fail("not rejected");
+        } catch (RejectedExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+}
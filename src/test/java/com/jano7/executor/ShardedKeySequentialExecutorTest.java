@@ -0,0 +1,164 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jano7.executor.TestUtils.doSomething;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShardedKeySequentialExecutorTest {
+
+    private void executeInOrder(ShardedKeySequentialExecutor executor) throws InterruptedException {
+        int keys = 100;
+        int tasksPerProducer = 1000;
+        int producers = 4;
+        List<List<Integer>> processed = new ArrayList<>();
+        for (int key = 0; key < keys; ++key) {
+            processed.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        ExecutorService producerExecutor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; ++p) {
+            int producer = p;
+            producerExecutor.execute(() -> {
+                for (int i = 0; i < tasksPerProducer; ++i) {
+                    int key = i % keys;
+                    int value = producer * tasksPerProducer + i;
+                    executor.execute(new KeyRunnable<>(key, () -> processed.get(key).add(value)));
+                }
+            });
+        }
+        producerExecutor.shutdown();
+        assertTrue(producerExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executor.drain(5, TimeUnit.SECONDS));
+
+        int total = 0;
+        for (List<Integer> values : processed) {
+            int[] last = {-1, -1, -1, -1};
+            for (int value : values) {
+                int producer = value / tasksPerProducer;
+                assertTrue(value > last[producer]);
+                last[producer] = value;
+            }
+            total += values.size();
+        }
+        assertEquals(producers * tasksPerProducer, total);
+    }
+
+    @Test(timeout = 10000)
+    public void executeTasksInCorrectOrder() throws InterruptedException {
+        executeInOrder(new ShardedKeySequentialExecutor(4));
+    }
+
+    @Test(timeout = 10000)
+    public void executeTasksInCorrectOrderWithWorkStealing() throws InterruptedException {
+        executeInOrder(new ShardedKeySequentialExecutor(4, true));
+    }
+
+    @Test(timeout = 5000)
+    public void idleShardStealsWaitingKeys() throws InterruptedException {
+        ShardedKeySequentialExecutor executor = new ShardedKeySequentialExecutor(2, true);
+        CountDownLatch block = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+
+        // the keys 0 and 2 map onto two buckets of the first shard
+        executor.execute(new KeyRunnable<>(0, () -> {
+            threads.add(Thread.currentThread());
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+        }));
+        executor.execute(new KeyRunnable<>(2, () -> {
+            threads.add(Thread.currentThread());
+            done.countDown();
+        }));
+
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertEquals(2, threads.size());
+        block.countDown();
+        assertTrue(executor.drain(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void drainRejectsNewTasks() throws InterruptedException {
+        ShardedKeySequentialExecutor executor = new ShardedKeySequentialExecutor(2);
+        CountDownLatch block = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger(0);
+
+        executor.execute(() -> {
+            try {
+                block.await();
+            } catch (InterruptedException ignored) {
+            }
+            completed.incrementAndGet();
+        });
+        assertFalse(executor.drain(100, TimeUnit.MILLISECONDS));
+        try {
+            executor.execute(doSomething);
+            fail();
+        } catch (RejectedExecutionException ignored) {
+        }
+        block.countDown();
+        assertTrue(executor.drain(1, TimeUnit.SECONDS));
+        assertEquals(1, completed.get());
+    }
+
+    @Test(timeout = 5000)
+    public void exceptionHandler() throws InterruptedException {
+        CountDownLatch handled = new CountDownLatch(1);
+        ShardedKeySequentialExecutor executor = new ShardedKeySequentialExecutor(
+                1,
+                false,
+                new TaskExceptionHandler<Runnable>() {
+                    @Override
+                    public void onException(Runnable key, Throwable cause) {
+                        handled.countDown();
+                    }
+                },
+                Executors.defaultThreadFactory()
+        );
+        executor.execute(() -> {
+            throw new IllegalStateException();
+        });
+        assertTrue(handled.await(1, TimeUnit.SECONDS));
+        assertTrue(executor.drain(1, TimeUnit.SECONDS));
+    }
+}
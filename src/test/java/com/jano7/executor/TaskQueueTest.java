@@ -25,6 +25,7 @@ package com.jano7.executor;
 
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -35,7 +36,7 @@ public class TaskQueueTest {
 
     @Test(timeout = 5000)
     public void enqueueDequeue() throws InterruptedException {
-        TaskQueue taskQueue = new TaskQueue();
+        TaskQueue<Runnable> taskQueue = new TaskQueue<>();
         Thread enqueueThread = new Thread(() -> {
             for (int i = 0; i < 100; ++i) {
                 taskQueue.enqueue(new KeyRunnable<>(i, doSomething));
@@ -57,7 +58,7 @@ public class TaskQueueTest {
 
     @Test(timeout = 5000)
     public void reject() throws InterruptedException {
-        TaskQueue taskQueue = new TaskQueue();
+        TaskQueue<Runnable> taskQueue = new TaskQueue<>();
         Thread rejectTrigger = new Thread(() -> {
             try {
                 Thread.sleep(500);
@@ -82,4 +83,74 @@ public class TaskQueueTest {
         assertArrayEquals(enqueued.toArray(), dequeued.toArray());
         assertNull(taskQueue.dequeue());
     }
+
+    @Test(timeout = 10000)
+    public void multipleProducers() throws InterruptedException {
+        int producers = 8;
+        int tasksPerProducer = 100000;
+        TaskQueue<Runnable> taskQueue = new TaskQueue<>();
+        List<Thread> producerThreads = new LinkedList<>();
+        for (int p = 0; p < producers; ++p) {
+            final int producer = p;
+            producerThreads.add(new Thread(() -> {
+                for (int i = 0; i < tasksPerProducer; ++i) {
+                    taskQueue.enqueue(new KeyRunnable<>(producer * tasksPerProducer + i, doSomething));
+                }
+            }));
+        }
+        producerThreads.forEach(Thread::start);
+
+        int[] lastDequeued = new int[producers];
+        Arrays.fill(lastDequeued, -1);
+        for (int dequeued = 0; dequeued < producers * tasksPerProducer; ) {
+            Runnable task = taskQueue.dequeue();
+            if (task == null) {
+                Thread.yield();
+            } else {
+                int id = Integer.parseInt(task.toString());
+                int producer = id / tasksPerProducer;
+                assertEquals(lastDequeued[producer] + 1, id % tasksPerProducer);
+                lastDequeued[producer] = id % tasksPerProducer;
+                ++dequeued;
+            }
+        }
+        for (Thread thread : producerThreads) {
+            thread.join();
+        }
+        assertTrue(taskQueue.isEmpty());
+        assertNull(taskQueue.dequeue());
+    }
+
+    @Test
+    public void retireIfEmpty() {
+        TaskQueue<Runnable> taskQueue = new TaskQueue<>();
+        assertTrue(taskQueue.enqueue(doSomething));
+        assertFalse(taskQueue.retireIfEmpty());
+        assertFalse(taskQueue.isRetired());
+
+        assertEquals(doSomething, taskQueue.dequeue());
+        assertTrue(taskQueue.retireIfEmpty());
+        assertTrue(taskQueue.isRetired());
+        assertFalse(taskQueue.enqueue(doSomething));
+        assertNull(taskQueue.dequeue());
+    }
+
+    @Test
+    public void rejectedIsNotRetired() {
+        TaskQueue<Runnable> taskQueue = new TaskQueue<>();
+        for (int i = 0; i < 10; ++i) {
+            assertTrue(taskQueue.enqueue(new KeyRunnable<>(i, doSomething)));
+        }
+        assertEquals(new KeyRunnable<>(0, doSomething), taskQueue.dequeue());
+
+        List<Runnable> queued = taskQueue.rejectNew();
+
+        assertEquals(9, queued.size());
+        for (int i = 0; i < 9; ++i) {
+            assertEquals(new KeyRunnable<>(i + 1, doSomething), queued.get(i));
+        }
+        assertFalse(taskQueue.enqueue(doSomething));
+        assertFalse(taskQueue.isRetired());
+        assertFalse(taskQueue.retireIfEmpty());
+    }
 }
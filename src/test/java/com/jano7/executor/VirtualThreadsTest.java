@@ -0,0 +1,90 @@
+/*
+MIT License
+
+Copyright (c) 2026 Jan Gaspar
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package com.jano7.executor;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadsTest {
+
+    @Test(timeout = 5000)
+    public void executeTasksInCorrectOrder() throws InterruptedException {
+        assumeTrue(VirtualThreads.isSupported());
+
+        ExecutorService virtualThreads = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        KeySequentialRunner<Integer> runner = VirtualThreads.newKeySequentialRunner(
+                virtualThreads,
+                new TaskExceptionHandler<Integer>() {
+                }
+        );
+        List<Integer> processed = Collections.synchronizedList(new LinkedList<>());
+        CountDownLatch done = new CountDownLatch(1000);
+
+        for (int i = 0; i < 1000; ++i) {
+            final int toProcess = i;
+            runner.run(i % 2, () -> {
+                try {
+                    // blocking in a task must not pin the carrier thread
+                    Thread.sleep(1);
+                } catch (InterruptedException ignored) {
+                }
+                processed.add(toProcess);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        int previousOdd = -1;
+        int previousEven = -2;
+        for (int p : processed) {
+            if (p % 2 == 0) {
+                assertEquals(previousEven + 2, p);
+                previousEven = p;
+            } else {
+                assertEquals(previousOdd + 2, p);
+                previousOdd = p;
+            }
+        }
+        virtualThreads.shutdown();
+        assertTrue(virtualThreads.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void unsupportedBeforeJdk21() {
+        assumeFalse(VirtualThreads.isSupported());
+
+        VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+}